@@ -5,24 +5,38 @@ import com.bitwig.extension.controller.api.Preferences;
 import com.bitwig.extension.controller.api.SettableStringValue;
 import com.bitwig.extension.controller.api.SettableRangedValue;
 import com.bitwig.extension.controller.api.SettableBooleanValue;
+import com.bitwig.extension.controller.api.SettableEnumValue;
 import com.bitwig.extension.controller.ControllerExtension;
 
 import com.systemexklusiv.services.APIServiceImpl;
+import com.systemexklusiv.services.ExtensionLogger;
 import com.systemexklusiv.services.OSCManagerImpl;
 import com.systemexklusiv.services.CueMarkerServiceImpl;
 import com.systemexklusiv.services.SceneServiceImpl;
 
+import java.io.File;
+import java.net.InetSocketAddress;
+
 public class OSCProjectManagerExtension extends ControllerExtension
 {
+   private ExtensionLogger log;
    private APIServiceImpl apiService;
    private OSCManagerImpl oscManager;
    private CueMarkerServiceImpl cueMarkerService;
    private SceneServiceImpl sceneService;
    
    private SettableStringValue sendHostSetting;
+   private SettableStringValue additionalTargetsSetting;
    private SettableRangedValue sendPortSetting;
    private SettableRangedValue receivePortSetting;
+   private SettableEnumValue transportSetting;
+   private SettableRangedValue bundleMtuSetting;
+   private SettableRangedValue bulkRateLimitSetting;
+   private SettableRangedValue triggerDebounceSetting;
+   private SettableRangedValue bankIdleTimeoutSetting;
+   private SettableEnumValue snapshotFormatSetting;
    private SettableBooleanValue debugSetting;
+   private SettableBooleanValue logFileSetting;
    
    private boolean initializationComplete = false;
 
@@ -61,28 +75,75 @@ public class OSCProjectManagerExtension extends ControllerExtension
       sendPortSetting = preferences.getNumberSetting(
           "Send Port", "OSC Settings", 1024, 65535, 1, "", 9000);
       
+      // Further clients as "host:port" separated by commas, e.g. "192.168.1.21:9000,192.168.1.22:9000"
+      additionalTargetsSetting = preferences.getStringSetting(
+          "Additional Targets", "OSC Settings", 64, "");
+      
       receivePortSetting = preferences.getNumberSetting(
           "Receive Port", "OSC Settings", 1024, 65535, 1, "", 8000);
       
+      // TCP connects to Send Host/Send Port and also reads incoming messages from that connection
+      transportSetting = preferences.getEnumSetting(
+          "Transport", "OSC Settings",
+          new String[] { OSCManagerImpl.TRANSPORT_UDP, OSCManagerImpl.TRANSPORT_TCP_SLIP }, OSCManagerImpl.TRANSPORT_UDP);
+      
+      bundleMtuSetting = preferences.getNumberSetting(
+          "Bundle MTU", "OSC Settings", 256, 65507, 1, "bytes", OSCManagerImpl.DEFAULT_BUNDLE_MTU);
+      
+      // Pace for name syncs per client, live feedback always goes first. 0 = unlimited
+      bulkRateLimitSetting = preferences.getNumberSetting(
+          "Bulk Rate Limit", "OSC Settings", 0, 100000, 1, "KB/s", OSCManagerImpl.DEFAULT_BULK_RATE_LIMIT_KBPS);
+      
+      // A second press of the same trigger within this window is ignored as a double tap. 0 = off
+      triggerDebounceSetting = preferences.getNumberSetting(
+          "Trigger Debounce", "OSC Settings", 0, 2000, 1, "ms", OSCManagerImpl.DEFAULT_TRIGGER_DEBOUNCE_MS);
+      
+      // The all tracks bank is only subscribed while bulk track commands run and this long after. 0 = always
+      bankIdleTimeoutSetting = preferences.getNumberSetting(
+          "Bank Idle Timeout", "OSC Settings", 0, 600, 1, "s", APIServiceImpl.DEFAULT_BANK_IDLE_TIMEOUT_S);
+      
+      // Compact sends every cue/scene bank as a few /cue/bank, /scene/bank messages, see OSCNameBankDecoder
+      snapshotFormatSetting = preferences.getEnumSetting(
+          "Snapshot Format", "OSC Settings",
+          new String[] { OSCManagerImpl.SNAPSHOT_FORMAT_PER_SLOT, OSCManagerImpl.SNAPSHOT_FORMAT_COMPACT },
+          OSCManagerImpl.SNAPSHOT_FORMAT_PER_SLOT);
+      
       debugSetting = preferences.getBooleanSetting(
           "Debug Logging", "OSC Settings", true);
       
+      // Also writes the log to ~/.OSCProjectManager/OSCProjectManager.log, rotated at 1 MB
+      logFileSetting = preferences.getBooleanSetting(
+          "Log File", "OSC Settings", false);
+      
       // Force preference values to be ready
       sendHostSetting.markInterested();
       sendPortSetting.markInterested();
+      additionalTargetsSetting.markInterested();
       receivePortSetting.markInterested();
+      transportSetting.markInterested();
+      bundleMtuSetting.markInterested();
+      bulkRateLimitSetting.markInterested();
+      triggerDebounceSetting.markInterested();
+      bankIdleTimeoutSetting.markInterested();
+      snapshotFormatSetting.markInterested();
       debugSetting.markInterested();
+      logFileSetting.markInterested();
       
       getHost().println("Preferences initialized with defaults: Host=127.0.0.1, SendPort=9000, ReceivePort=8000, Debug=true");
    }
    
    private void initializeServices() {
+      log = new ExtensionLogger(getHost());
+      log.setLevel(debugSetting.get() ? ExtensionLogger.DEBUG : ExtensionLogger.INFO);
+      log.setLogFile(logFileSetting.get() ? getLogFile() : null);
+      
       apiService = new APIServiceImpl();
       oscManager = new OSCManagerImpl();
       cueMarkerService = new CueMarkerServiceImpl();
       sceneService = new SceneServiceImpl();
       
-      apiService.initialize(getHost());
+      apiService.initialize(getHost(), log);
+      apiService.setBankIdleTimeout(getBankIdleTimeoutMillis());
       
       // Set OSC manager reference so API service can send messages
       apiService.setOSCManager(oscManager);
@@ -106,10 +167,16 @@ public class OSCProjectManagerExtension extends ControllerExtension
       }
       
       getHost().println("OSC Config DEBUG - Raw values: sendPort=" + sendPortRaw + ", receivePort=" + receivePortRaw);
-      getHost().println("OSC Config - Send Host: " + sendHost + ", Send Port: " + sendPort + ", Receive Port: " + receivePort);
+      getHost().println("OSC Config - Send Host: " + sendHost + ", Send Port: " + sendPort + ", Receive Port: " + receivePort
+          + ", Transport: " + transportSetting.get());
       
-      oscManager.initialize(getHost(), sendHost, sendPort, receivePort);
-      oscManager.setDebugMode(debugSetting.get());
+      oscManager.setTransport(transportSetting.get());
+      oscManager.initialize(getHost(), log, sendHost, sendPort, receivePort);
+      addAdditionalTargets();
+      oscManager.setBundleMtu(getBundleMtu());
+      oscManager.setBulkRateLimit(getBulkRateLimit());
+      oscManager.setTriggerDebounce((long) triggerDebounceSetting.getRaw());
+      oscManager.setSnapshotFormat(snapshotFormatSetting.get());
       
       cueMarkerService.initialize(apiService, oscManager);
       sceneService.initialize(apiService, oscManager);
@@ -130,18 +197,75 @@ public class OSCProjectManagerExtension extends ControllerExtension
           }
       });
       
+      additionalTargetsSetting.addValueObserver(targets -> {
+          if (initializationComplete) {
+              restartOSC();
+          }
+      });
+      
       receivePortSetting.addValueObserver(port -> {
           if (initializationComplete) {
               restartOSC();
           }
       });
       
+      transportSetting.addValueObserver(transport -> {
+          if (initializationComplete) {
+              restartOSC();
+          }
+      });
+      
+      bundleMtuSetting.addValueObserver(value -> {
+          oscManager.setBundleMtu(getBundleMtu());
+      });
+      
+      bulkRateLimitSetting.addValueObserver(value -> {
+          oscManager.setBulkRateLimit(getBulkRateLimit());
+      });
+      
+      triggerDebounceSetting.addValueObserver(value -> {
+          oscManager.setTriggerDebounce((long) triggerDebounceSetting.getRaw());
+      });
+      
+      bankIdleTimeoutSetting.addValueObserver(value -> {
+          apiService.setBankIdleTimeout(getBankIdleTimeoutMillis());
+      });
+      
+      snapshotFormatSetting.addValueObserver(format -> {
+          oscManager.setSnapshotFormat(format);
+      });
+      
       debugSetting.addValueObserver(debug -> {
-          oscManager.setDebugMode(debug);
+          log.setLevel(debug ? ExtensionLogger.DEBUG : ExtensionLogger.INFO);
           if (initializationComplete) {
               getHost().println("Debug mode " + (debug ? "enabled" : "disabled"));
           }
       });
+      
+      logFileSetting.addValueObserver(enabled -> {
+          log.setLogFile(enabled ? getLogFile() : null);
+      });
+   }
+   
+   private File getLogFile() {
+      return new File(new File(System.getProperty("user.home"), ".OSCProjectManager"), "OSCProjectManager.log");
+   }
+   
+   private int getBundleMtu() {
+      int bundleMtu = (int) bundleMtuSetting.getRaw();
+      if (bundleMtu == 0) {
+          bundleMtu = OSCManagerImpl.DEFAULT_BUNDLE_MTU;
+      }
+      return bundleMtu;
+   }
+   
+   // In bytes per second
+   private long getBulkRateLimit() {
+      return (long) bulkRateLimitSetting.getRaw() * 1024;
+   }
+   
+   private long getBankIdleTimeoutMillis() {
+      return (long) bankIdleTimeoutSetting.getRaw() * 1000;
    }
    
    private void restartOSC() {
@@ -162,13 +286,39 @@ public class OSCProjectManagerExtension extends ControllerExtension
           receivePort = 8000;
       }
       
-      getHost().println("OSC Restart - Send Host: " + sendHost + ", Send Port: " + sendPort + ", Receive Port: " + receivePort);
+      getHost().println("OSC Restart - Send Host: " + sendHost + ", Send Port: " + sendPort + ", Receive Port: " + receivePort
+          + ", Transport: " + transportSetting.get());
       
-      oscManager.initialize(getHost(), sendHost, sendPort, receivePort);
-      oscManager.setDebugMode(debugSetting.get());
+      oscManager.setTransport(transportSetting.get());
+      oscManager.initialize(getHost(), log, sendHost, sendPort, receivePort);
+      addAdditionalTargets();
       oscManager.start();
    }
    
+   private void addAdditionalTargets() {
+      String targets = additionalTargetsSetting.get();
+      if (targets == null || targets.trim().isEmpty()) {
+          return;
+      }
+      
+      for (String target : targets.split(",")) {
+          target = target.trim();
+          int separator = target.lastIndexOf(':');
+          if (separator <= 0 || separator == target.length() - 1) {
+              getHost().errorln("Ignoring additional OSC target \"" + target + "\", expected host:port");
+              continue;
+          }
+          
+          try {
+              int port = Integer.parseInt(target.substring(separator + 1));
+              oscManager.addDestination(target.substring(0, separator), port);
+              getHost().println("OSC Config - Additional target: " + target);
+          } catch (NumberFormatException e) {
+              getHost().errorln("Ignoring additional OSC target \"" + target + "\", invalid port");
+          }
+      }
+   }
+   
    private void setupOSCCallback() {
       oscManager.setOSCCallback(new OSCManagerImpl.OSCCallback() {
           @Override
@@ -210,9 +360,53 @@ public class OSCProjectManagerExtension extends ControllerExtension
           public void onTransitionTrigger(int index) {
               apiService.triggerTransitionSlot(index);
           }
+          
+          @Override
+          public void onFullResync() {
+              fullResync();
+          }
+          
+          @Override
+          public void onClientHello(InetSocketAddress client) {
+              oscManager.sendSnapshot(client, () -> broadcastEverything());
+          }
+          
+          @Override
+          public void onCuePage(InetSocketAddress client, int offset, int count) {
+              // A count of 0 resets the viewport, the whole bank is sent then
+              int pageOffset = count > 0 ? offset : 0;
+              int pageSize = count > 0 ? count : Integer.MAX_VALUE;
+              oscManager.sendSnapshot(client, () -> {
+                  cueMarkerService.broadcastCueMarkers(pageOffset, pageSize);
+                  cueMarkerService.broadcastCueMarkerCount();
+              });
+          }
+          
+          @Override
+          public void onScenePage(InetSocketAddress client, int offset, int count) {
+              int pageOffset = count > 0 ? offset : 0;
+              int pageSize = count > 0 ? count : Integer.MAX_VALUE;
+              oscManager.sendSnapshot(client, () -> {
+                  sceneService.broadcastScenes(pageOffset, pageSize);
+                  sceneService.broadcastSceneCount();
+              });
+          }
       });
    }
    
+   private void fullResync() {
+      oscManager.invalidateShadowState();
+      broadcastEverything();
+   }
+   
+   private void broadcastEverything() {
+      cueMarkerService.broadcastAllCueMarkers();
+      cueMarkerService.broadcastCueMarkerCount();
+      sceneService.broadcastAllScenes();
+      sceneService.broadcastSceneCount();
+      apiService.sendTransitionNames();
+   }
+   
    private void startServices() {
       oscManager.start();
       cueMarkerService.startMonitoring();
@@ -234,12 +428,30 @@ public class OSCProjectManagerExtension extends ControllerExtension
           oscManager.stop();
       }
       
+      if (apiService != null) {
+          apiService.stop();
+      }
+      
+      // Last, so the messages of the services stopping above are written too
+      if (log != null) {
+          log.close();
+      }
+      
       getHost().showPopupNotification("OSCProjectManager Exited");
    }
 
    @Override
    public void flush()
    {
-      // OSC communication handles real-time updates via observers
+      // Incoming OSC commands run here on the host thread, their replies go out with the flush below
+      // Observers only queue their OSC updates, send them once per host flush
+      // Track operations waiting for a duplicate or new track continue once its observer updates are in
+      if (apiService != null) {
+          apiService.flush();
+      }
+      if (oscManager != null) {
+          oscManager.runCommands();
+          oscManager.flushOutbound();
+      }
    }
 }
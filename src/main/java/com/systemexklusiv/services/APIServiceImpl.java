@@ -18,30 +18,62 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class APIServiceImpl {
     
+    public static final int DEFAULT_BANK_IDLE_TIMEOUT_S = 30;
+    
     private static final int CUE_MARKER_BANK_SIZE = 128;
     private static final int SCENE_BANK_SIZE = 128;
+    private static final int ALL_TRACKS_BANK_CAPACITY = 512;
+    // The flat bank window follows the project's track count in steps of this, at least one step ahead
+    private static final int TRACK_WINDOW_STEP = 32;
+    // How long a step waits for Bitwig to show a new or duplicated track before it gives up
+    private static final long NEW_TRACK_TIMEOUT_MS = 3000;
+    private static final long DUPLICATE_TIMEOUT_MS = 5000;
+    // Transition names go out once the cursor track's slots have been quiet this long, at the latest
+    // after the max delay, so scrolling through tracks only sends the track it stops on
+    private static final long TRANSITION_DEBOUNCE_MS = 100;
+    private static final long TRANSITION_MAX_DELAY_MS = 500;
     
     private ControllerHost host;
+    private ExtensionLogger log;
     private Arranger arranger;
     private CueMarkerBank cueMarkerBank;
     private SceneBank sceneBank;
-    private TrackBank trackBank;
+    // Kept by the exists observers, so counting needs no pass over the bank
+    private final BitSet existingCueMarkers = new BitSet();
+    private final BitSet existingScenes = new BitSet();
     private TrackBank allTracksBank; // Flat bank to access all tracks including nested ones
+    private final TrackTagIndex trackIndex = new TrackTagIndex(ALL_TRACKS_BANK_CAPACITY);
+    private boolean trackCapacityWarned = false;
+    // Only the bulk track operations need the flat bank, it is subscribed while they run
+    private BankSubscription allTracksSubscription;
+    private int trackItemCount = -1; // -1 until the bank first reported it
+    // When Bitwig last delivered a count, exists or name value of the flat bank, for the ready probe
+    private long lastTrackDeliveryNanos = 0;
     private Track cursorTrack;
     private ClipLauncherSlotBank cursorTrackClipBank;
+    // Slots whose transition name may have changed since the last send, OSCShadowState drops the unchanged ones
+    private final BitSet dirtyTransitionSlots = new BitSet();
+    private boolean transitionFlushScheduled = false;
+    private long firstTransitionChangeNanos = 0;
+    private long lastTransitionChangeNanos = 0;
     private Application application;
     private OSCManagerImpl oscManager;
+    private TrackChangeWaiter trackChanges;
     
-    public void initialize(ControllerHost host) {
+    public void initialize(ControllerHost host, ExtensionLogger log) {
         this.host = host;
+        this.log = log;
         this.arranger = host.createArranger();
+        this.trackChanges = new TrackChangeWaiter(host, log);
         
         setupCueMarkerBank();
         setupSceneBank();
-        setupTrackBank();
         setupAllTracksBank();
         setupCursorTrack();
         setupApplication();
@@ -51,58 +83,109 @@ public class APIServiceImpl {
         this.oscManager = oscManager;
     }
     
+    /**
+     * How long the flat track bank stays subscribed after the last bulk operation, 0 keeps it subscribed.
+     */
+    public void setBankIdleTimeout(long idleTimeoutMillis) {
+        allTracksSubscription.setIdleTimeout(idleTimeoutMillis);
+    }
+    
+    public void stop() {
+        log.info("Bank stats - " + allTracksSubscription.describe());
+        if (trackChanges.getPendingCount() > 0) {
+            log.warn("Track operations still waiting for a project change at exit: " + trackChanges.getPendingCount());
+        }
+    }
+    
+    /**
+     * Continues track operations waiting for a project change, call from the extension's flush().
+     */
+    public void flush() {
+        trackChanges.poll();
+    }
+    
     private void setupCueMarkerBank() {
         cueMarkerBank = arranger.createCueMarkerBank(CUE_MARKER_BANK_SIZE);
         
         for (int i = 0; i < CUE_MARKER_BANK_SIZE; i++) {
+            final int index = i;
             CueMarker cueMarker = cueMarkerBank.getItemAt(i);
             
-            cueMarker.exists().markInterested();
+            // Registered before the services' observers, so the count is current when they read it
+            cueMarker.exists().addValueObserver(exists -> existingCueMarkers.set(index, exists));
             cueMarker.position().markInterested();
             cueMarker.getName().markInterested();
         }
     }
     
-    private void setupTrackBank() {
-        trackBank = host.createTrackBank(128, 0, 0, false);
-        
-        for (int i = 0; i < 128; i++) {
-            Track track = trackBank.getItemAt(i);
-            track.exists().markInterested();
-            track.name().markInterested();
-            track.arm().markInterested();
-            track.monitorMode().markInterested();
-            track.canHoldNoteData().markInterested();
-            track.canHoldAudioData().markInterested();
-            track.isGroup().markInterested();
-            
-            // Setup source selector for input routing
-            SourceSelector sourceSelector = track.sourceSelector();
-            sourceSelector.hasAudioInputSelected().markInterested();
-            sourceSelector.hasNoteInputSelected().markInterested();
-        }
-    }
-    
     private void setupAllTracksBank() {
         // Create a flat track bank that includes ALL tracks (including nested ones)
-        allTracksBank = host.createTrackBank(512, 0, 0, true); // Large flat bank with hasFlatTrackList=true
+        allTracksBank = host.createTrackBank(ALL_TRACKS_BANK_CAPACITY, 0, 0, true); // Large flat bank with hasFlatTrackList=true
+        
+        allTracksBank.itemCount().addValueObserver(count -> {
+            lastTrackDeliveryNanos = System.nanoTime();
+            trackItemCount = count;
+            resizeTrackWindow(count);
+            trackChanges.changed();
+        });
         
-        for (int i = 0; i < 512; i++) {
+        for (int i = 0; i < ALL_TRACKS_BANK_CAPACITY; i++) {
+            final int position = i;
             Track track = allTracksBank.getItemAt(i);
-            track.exists().markInterested();
-            track.name().markInterested();
             track.arm().markInterested();
             track.monitorMode().markInterested();
             track.isMonitoring().markInterested();
             track.canHoldNoteData().markInterested();
-            track.canHoldAudioData().markInterested();
-            track.isGroup().markInterested();
+            
+            // Keep the tag index current, so bulk commands only visit the tracks they act on
+            track.exists().addValueObserver(exists -> {
+                lastTrackDeliveryNanos = System.nanoTime();
+                trackIndex.setExists(position, exists);
+                trackChanges.changed();
+            });
+            track.name().addValueObserver(name -> {
+                lastTrackDeliveryNanos = System.nanoTime();
+                trackIndex.setName(position, name);
+                trackChanges.changed();
+            });
+            track.isGroup().addValueObserver(isGroup -> trackIndex.setGroup(position, isGroup));
+            track.canHoldAudioData().addValueObserver(canHoldAudio -> trackIndex.setAudio(position, canHoldAudio));
             
             // Setup source selector for input routing
             SourceSelector sourceSelector = track.sourceSelector();
             sourceSelector.hasAudioInputSelected().markInterested();
             sourceSelector.hasNoteInputSelected().markInterested();
         }
+        
+        // Bitwig only sends values for slots inside the bank size, start small and follow the project.
+        // Only after every item has been fetched above, getItemAt() requires an index below the size
+        allTracksBank.setSizeOfBank(TRACK_WINDOW_STEP);
+        trackIndex.setWindow(TRACK_WINDOW_STEP);
+        
+        // Ready once Bitwig has delivered values again since the subscribe and every track in the window is
+        // in the index. The index keeps its last known state while unsubscribed, so if nothing arrives the
+        // operations run on it after the ready timeout instead of on an empty index
+        allTracksSubscription = new BankSubscription(host, log, "All tracks bank", allTracksBank, trackChanges,
+            subscribedNanos -> lastTrackDeliveryNanos > subscribedNanos
+                && trackItemCount >= 0
+                && trackIndex.existing().cardinality()
+                    >= Math.min(allTracksBank.itemCount().get(), allTracksBank.getSizeOfBank()));
+    }
+    
+    // Keeps the window one to two steps above the track count, so new tracks are visible before it grows
+    private void resizeTrackWindow(int trackCount) {
+        int size = Math.min(ALL_TRACKS_BANK_CAPACITY,
+            (trackCount + 2 * TRACK_WINDOW_STEP - 1) / TRACK_WINDOW_STEP * TRACK_WINDOW_STEP);
+        
+        if (trackCount > ALL_TRACKS_BANK_CAPACITY && !trackCapacityWarned) {
+            trackCapacityWarned = true;
+            log.warn("Project has " + trackCount + " tracks, only the first " + ALL_TRACKS_BANK_CAPACITY + " are managed");
+        }
+        if (size == allTracksBank.getSizeOfBank()) return;
+        
+        log.info("Track window resized to " + size + " slots for " + trackCount + " tracks");
+        allTracksBank.setSizeOfBank(size);
+        trackIndex.setWindow(size);
     }
     
     private void setupCursorTrack() {
@@ -121,14 +204,20 @@ public class APIServiceImpl {
         if (cursorTrackClipBank != null) {
             // Mark clip slot properties as interested
             for (int i = 0; i < cursorTrackClipBank.getSizeOfBank(); i++) {
+                final int index = i;
                 ClipLauncherSlot slot = cursorTrackClipBank.getItemAt(i);
                 slot.exists().markInterested();
                 slot.hasContent().markInterested();
                 slot.name().markInterested();
+                
+                // Only the slots that actually changed are sent again
+                slot.exists().addValueObserver(exists -> transitionSlotsChanged(index, index + 1));
+                slot.hasContent().addValueObserver(hasContent -> transitionSlotsChanged(index, index + 1));
+                slot.name().addValueObserver(name -> transitionSlotsChanged(index, index + 1));
             }
-            host.println("Cursor track clip bank initialized with " + cursorTrackClipBank.getSizeOfBank() + " slots");
+            log.info("Cursor track clip bank initialized with " + cursorTrackClipBank.getSizeOfBank() + " slots");
         } else {
-            host.println("WARNING: Could not create clip launcher slot bank for cursor track");
+            log.warn("WARNING: Could not create clip launcher slot bank for cursor track");
         }
         
         // Setup source selector for input routing
@@ -136,16 +225,79 @@ public class APIServiceImpl {
         sourceSelector.hasAudioInputSelected().markInterested();
         sourceSelector.hasNoteInputSelected().markInterested();
         
-        // Add observer to automatically send transition names when track changes
-        cursorTrack.name().addValueObserver(trackName -> {
-            if (oscManager != null) {
-                // Small delay to ensure track is fully loaded
-                host.scheduleTask(() -> {
-                    host.println("Track selection changed to: \"" + trackName + "\" - sending transition names");
-                    sendTransitionNames();
-                }, 200);
+        // A different track or track type can change every slot, the slots of the new track
+        // report their own changes as Bitwig delivers them
+        if (cursorTrackClipBank != null) {
+            cursorTrack.exists().addValueObserver(exists -> transitionSlotsChanged(0, cursorTrackClipBank.getSizeOfBank()));
+            cursorTrack.name().addValueObserver(trackName -> transitionSlotsChanged(0, cursorTrackClipBank.getSizeOfBank()));
+            cursorTrack.isGroup().addValueObserver(isGroup -> transitionSlotsChanged(0, cursorTrackClipBank.getSizeOfBank()));
+        }
+    }
+    
+    private void transitionSlotsChanged(int from, int to) {
+        dirtyTransitionSlots.set(from, to);
+        lastTransitionChangeNanos = System.nanoTime();
+        if (transitionFlushScheduled) return;
+        
+        firstTransitionChangeNanos = lastTransitionChangeNanos;
+        transitionFlushScheduled = true;
+        host.scheduleTask(this::flushTransitionNames, TRANSITION_DEBOUNCE_MS);
+    }
+    
+    // Sends the changed slots once they have settled, a name that is gone is cleared with "".
+    // The only place that clears the dirty set
+    private void flushTransitionNames() {
+        transitionFlushScheduled = false;
+        long now = System.nanoTime();
+        long quietMillis = (now - lastTransitionChangeNanos) / 1_000_000;
+        long pendingMillis = (now - firstTransitionChangeNanos) / 1_000_000;
+        if (quietMillis < TRANSITION_DEBOUNCE_MS && pendingMillis < TRANSITION_MAX_DELAY_MS) {
+            transitionFlushScheduled = true;
+            host.scheduleTask(this::flushTransitionNames,
+                Math.min(TRANSITION_DEBOUNCE_MS - quietMillis, TRANSITION_MAX_DELAY_MS - pendingMillis));
+            return;
+        }
+        if (oscManager == null || dirtyTransitionSlots.isEmpty()) return;
+        
+        int sentSlots = 0;
+        int emptySlots = 0;
+        oscManager.beginBatch();
+        for (int i = dirtyTransitionSlots.nextSetBit(0); i >= 0; i = dirtyTransitionSlots.nextSetBit(i + 1)) {
+            String name = getTransitionName(i);
+            if (oscManager.sendTransitionName(i, name)) {
+                sentSlots++;
+                if (name.isEmpty()) {
+                    emptySlots++;
+                }
             }
-        });
+        }
+        oscManager.endBatch("transition names");
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Transition names of \"" + cursorTrack.name().get() + "\": " + sentSlots + " of "
+                + dirtyTransitionSlots.cardinality() + " changed slot(s) sent, " + emptySlots + " of them empty, "
+                + pendingMillis + " ms after the first change");
+        }
+        dirtyTransitionSlots.clear();
+    }
+    
+    /**
+     * What /transition/name/N shows for the cursor track, "" for a slot the client should clear.
+     */
+    private String getTransitionName(int index) {
+        if (!cursorTrack.exists().get()) return "";
+        
+        ClipLauncherSlot slot = cursorTrackClipBank.getItemAt(index);
+        if (!slot.exists().get() || !slot.hasContent().get()) return "";
+        
+        String clipName = slot.name().get();
+        boolean named = clipName != null && !clipName.trim().isEmpty();
+        if (cursorTrack.isGroup().get()) {
+            // For group tracks, always send sub-scene names (even if default)
+            return named ? clipName : "sub- " + index;
+        }
+        // For regular tracks, only clips with a custom name are shown
+        return named ? clipName : "";
     }
     
     private void setupApplication() {
@@ -156,9 +308,10 @@ public class APIServiceImpl {
         sceneBank = host.createSceneBank(SCENE_BANK_SIZE);
         
         for (int i = 0; i < SCENE_BANK_SIZE; i++) {
+            final int index = i;
             Scene scene = sceneBank.getItemAt(i);
             
-            scene.exists().markInterested();
+            scene.exists().addValueObserver(exists -> existingScenes.set(index, exists));
             scene.getName().markInterested();
         }
     }
@@ -176,7 +329,7 @@ public class APIServiceImpl {
             CueMarker cueMarker = cueMarkerBank.getItemAt(index);
             if (cueMarker.exists().get()) {
                 cueMarker.launch(true);
-                host.println("Triggered cue marker " + index + ": " + cueMarker.getName().get());
+                log.info("Triggered cue marker " + index + ": " + cueMarker.getName().get());
             }
         }
     }
@@ -186,29 +339,17 @@ public class APIServiceImpl {
             Scene scene = sceneBank.getItemAt(index);
             if (scene.exists().get()) {
                 scene.launch();
-                host.println("Triggered scene " + index + ": " + scene.getName().get());
+                log.info("Triggered scene " + index + ": " + scene.getName().get());
             }
         }
     }
     
     public int getCueMarkerCount() {
-        int count = 0;
-        for (int i = 0; i < CUE_MARKER_BANK_SIZE; i++) {
-            if (cueMarkerBank.getItemAt(i).exists().get()) {
-                count++;
-            }
-        }
-        return count;
+        return existingCueMarkers.cardinality();
     }
     
     public int getSceneCount() {
-        int count = 0;
-        for (int i = 0; i < SCENE_BANK_SIZE; i++) {
-            if (sceneBank.getItemAt(i).exists().get()) {
-                count++;
-            }
-        }
-        return count;
+        return existingScenes.cardinality();
     }
     
     public String getCueMarkerName(int index) {
@@ -232,6 +373,10 @@ public class APIServiceImpl {
     }
     
     public void duplicateSelectedTrackToNew() {
+        allTracksSubscription.use("duplicate track", this::runDuplicateSelectedTrackToNew);
+    }
+    
+    private void runDuplicateSelectedTrackToNew() {
         if (cursorTrack.exists().get()) {
             boolean wasArmed = cursorTrack.arm().get();
             String monitorModeValue = cursorTrack.monitorMode().get();
@@ -249,45 +394,46 @@ public class APIServiceImpl {
             }
             
             // Create appropriate track type based on original
+            int tracksBefore = trackIndex.existing().cardinality();
             if (canHoldNotes && !canHoldAudio) {
                 // Instrument track
                 application.createInstrumentTrack(-1);
-                host.println("Creating instrument track...");
+                log.info("Creating instrument track...");
             } else if (canHoldAudio && !canHoldNotes) {
                 // Audio track
                 application.createAudioTrack(-1);
-                host.println("Creating audio track...");
+                log.info("Creating audio track...");
             } else {
                 // Default to audio track if unclear
                 application.createAudioTrack(-1);
-                host.println("Creating default audio track...");
+                log.info("Creating default audio track...");
             }
             
-            host.scheduleTask(() -> {
-                Track newTrack = findNewestTrack();
-                if (newTrack != null) {
-                    transferTrackSettings(newTrack, monitorModeValue, originalTrackName, wasArmed, hasAudioInput, hasNoteInput);
-                } else {
-                    host.println("Failed to locate newly created track.");
-                }
-            }, 300);
+            // Continue as soon as the new track shows up in the bank
+            allTracksSubscription.hold();
+            trackChanges.await("New track", NEW_TRACK_TIMEOUT_MS,
+                () -> trackIndex.existing().cardinality() > tracksBefore ? findNewestTrack() : null,
+                newTrack -> {
+                    try {
+                        if (newTrack != null) {
+                            transferTrackSettings(newTrack, monitorModeValue, originalTrackName, wasArmed, hasAudioInput, hasNoteInput);
+                        } else {
+                            log.info("Failed to locate newly created track.");
+                        }
+                    } finally {
+                        allTracksSubscription.release();
+                    }
+                });
             
         } else {
-            host.println("No track selected for duplication.");
+            log.info("No track selected for duplication.");
         }
     }
     
     private Track findNewestTrack() {
-        // Find the last existing track in the track bank
-        Track lastTrack = null;
-        for (int i = trackBank.getSizeOfBank() - 1; i >= 0; i--) {
-            Track track = trackBank.getItemAt(i);
-            if (track.exists().get()) {
-                lastTrack = track;
-                break;
-            }
-        }
-        return lastTrack;
+        // New tracks are created at the end of the project, which is also the end of the flat track list
+        BitSet tracks = trackIndex.existing();
+        return tracks.isEmpty() ? null : allTracksBank.getItemAt(tracks.length() - 1);
     }
     
     private void transferTrackSettings(Track newTrack, String monitorModeValue, String originalTrackName, boolean wasArmed, boolean hasAudioInput, boolean hasNoteInput) {
@@ -301,21 +447,21 @@ public class APIServiceImpl {
         
         // Log I/O routing and monitoring information
         SourceSelector newSourceSelector = newTrack.sourceSelector();
-        host.println("=== Track Settings Analysis ===");
-        host.println("Original track I/O: Audio Input=" + hasAudioInput + ", Note Input=" + hasNoteInput);
-        host.println("New track I/O:      Audio Input=" + newSourceSelector.hasAudioInputSelected().get() + 
+        log.info("=== Track Settings Analysis ===");
+        log.info("Original track I/O: Audio Input=" + hasAudioInput + ", Note Input=" + hasNoteInput);
+        log.info("New track I/O:      Audio Input=" + newSourceSelector.hasAudioInputSelected().get() + 
                      ", Note Input=" + newSourceSelector.hasNoteInputSelected().get());
-        host.println("Monitor mode transferred: " + monitorModeValue + " -> " + newTrack.monitorMode().get());
-        host.println("Monitoring active: " + newTrack.isMonitoring().get());
+        log.info("Monitor mode transferred: " + monitorModeValue + " -> " + newTrack.monitorMode().get());
+        log.info("Monitoring active: " + newTrack.isMonitoring().get());
         
         // Check if the SourceSelector values are settable
-        host.println("Audio input settable: " + (newSourceSelector.hasAudioInputSelected() instanceof SettableBooleanValue));
-        host.println("Note input settable:  " + (newSourceSelector.hasNoteInputSelected() instanceof SettableBooleanValue));
+        log.info("Audio input settable: " + (newSourceSelector.hasAudioInputSelected() instanceof SettableBooleanValue));
+        log.info("Note input settable:  " + (newSourceSelector.hasNoteInputSelected() instanceof SettableBooleanValue));
         
         // TODO: I/O routing transfer not yet implemented
         // The Bitwig API SourceSelector appears to be read-only
         // Need to investigate action IDs or additional API methods for I/O routing
-        host.println("I/O routing transfer: Not yet implemented (API limitation)");
+        log.info("I/O routing transfer: Not yet implemented (API limitation)");
         
         // Determine track type for message
         String trackType = "track";
@@ -325,79 +471,86 @@ public class APIServiceImpl {
             trackType = "audio track";
         }
         
-        host.println("New clean " + trackType + " created. Settings transferred and ready for recording.");
+        log.info("New clean " + trackType + " created. Settings transferred and ready for recording.");
     }
     
     public void turnOffAllMonitoringExceptGroups() {
-        int tracksProcessed = 0;
+        allTracksSubscription.use("monitoring off", this::runTurnOffAllMonitoringExceptGroups);
+    }
+    
+    private void runTurnOffAllMonitoringExceptGroups() {
         int monitoringTurnedOff = 0;
-        int groovedTracksSkipped = 0;
         
-        host.println("=== Turning off monitoring for all audio tracks (except <G> group tracks) ===");
+        log.info("=== Turning off monitoring for all audio tracks (except <G> group tracks) ===");
+        
+        // Audio tracks without <G>, straight from the tag index (includes nested tracks)
+        BitSet groovedTracks = trackIndex.tagged(TrackTagIndex.GROUP);
+        BitSet audioTracks = trackIndex.audio();
+        audioTracks.andNot(groovedTracks);
         
-        // Process all tracks from the flat track bank (includes nested tracks)
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
+        for (int i = audioTracks.nextSetBit(0); i >= 0; i = audioTracks.nextSetBit(i + 1)) {
             Track track = allTracksBank.getItemAt(i);
+            String currentMonitorMode = track.monitorMode().get();
             
-            if (track.exists().get()) {
-                tracksProcessed++;
-                String trackName = track.name().get();
-                boolean canHoldAudio = track.canHoldAudioData().get();
-                String currentMonitorMode = track.monitorMode().get();
-                
-                // Check if track is audio track and doesn't contain <G>
-                if (canHoldAudio && !trackName.contains("<G>")) {
-                    // Turn off monitoring
-                    track.monitorMode().set("OFF");
-                    monitoringTurnedOff++;
-                    host.println("Turned OFF monitoring: \"" + trackName + "\" (was: " + currentMonitorMode + ")");
-                } else if (trackName.contains("<G>")) {
-                    groovedTracksSkipped++;
-                    host.println("Skipped <G> group track: \"" + trackName + "\" (monitoring: " + currentMonitorMode + ")");
-                } else if (!canHoldAudio) {
-                    host.println("Skipped non-audio track: \"" + trackName + "\"");
-                }
+            track.monitorMode().set("OFF");
+            monitoringTurnedOff++;
+            if (log.isDebugEnabled()) {
+                log.debug("Turned OFF monitoring: \"" + trackIndex.getName(i) + "\" (was: " + currentMonitorMode + ")");
+            }
+        }
+        
+        if (log.isDebugEnabled()) {
+            for (int i = groovedTracks.nextSetBit(0); i >= 0; i = groovedTracks.nextSetBit(i + 1)) {
+                log.debug("Skipped <G> group track: \"" + trackIndex.getName(i) + "\" (monitoring: " + allTracksBank.getItemAt(i).monitorMode().get() + ")");
             }
         }
         
-        host.println("=== Monitoring Off Complete ===");
-        host.println("Tracks processed: " + tracksProcessed);
-        host.println("Monitoring turned off: " + monitoringTurnedOff);
-        host.println("<G> group tracks skipped: " + groovedTracksSkipped);
+        log.info("=== Monitoring Off Complete ===");
+        log.info("Tracks processed: " + trackIndex.existing().cardinality());
+        log.info("Monitoring turned off: " + monitoringTurnedOff);
+        log.info("<G> group tracks skipped: " + groovedTracks.cardinality());
     }
     
     public void disarmAllTracks() {
+        allTracksSubscription.use("disarm all", this::runDisarmAllTracks);
+    }
+    
+    private void runDisarmAllTracks() {
         int tracksProcessed = 0;
         int tracksDisarmed = 0;
         
-        host.println("=== Disarming all tracks (audio and instrument) ===");
+        log.info("=== Disarming all tracks (audio and instrument) ===");
         
-        // Process all tracks from the flat track bank (includes nested tracks)
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
+        // Process all existing tracks of the flat track bank (includes nested tracks)
+        BitSet tracks = trackIndex.existing();
+        for (int i = tracks.nextSetBit(0); i >= 0; i = tracks.nextSetBit(i + 1)) {
             Track track = allTracksBank.getItemAt(i);
+            tracksProcessed++;
+            String trackName = trackIndex.getName(i);
+            boolean isArmed = track.arm().get();
             
-            if (track.exists().get()) {
-                tracksProcessed++;
-                String trackName = track.name().get();
-                boolean isArmed = track.arm().get();
-                
-                if (isArmed) {
-                    track.arm().set(false);
-                    tracksDisarmed++;
-                    host.println("Disarmed: \"" + trackName + "\"");
-                } else {
-                    host.println("Already disarmed: \"" + trackName + "\"");
+            if (isArmed) {
+                track.arm().set(false);
+                tracksDisarmed++;
+                if (log.isDebugEnabled()) {
+                    log.debug("Disarmed: \"" + trackName + "\"");
                 }
+            } else if (log.isDebugEnabled()) {
+                log.debug("Already disarmed: \"" + trackName + "\"");
             }
         }
         
-        host.println("=== Disarm All Complete ===");
-        host.println("Tracks processed: " + tracksProcessed);
-        host.println("Tracks disarmed: " + tracksDisarmed);
+        log.info("=== Disarm All Complete ===");
+        log.info("Tracks processed: " + tracksProcessed);
+        log.info("Tracks disarmed: " + tracksDisarmed);
     }
     
     public void makeRecordGroup() {
-        host.println("=== Making Record Group ===");
+        allTracksSubscription.use("record group", this::runMakeRecordGroup);
+    }
+    
+    private void runMakeRecordGroup() {
+        log.info("=== Making Record Group ===");
         
         // Step 1: Create timestamp with milliseconds for unique ordering
         LocalDateTime now = LocalDateTime.now();
@@ -407,224 +560,267 @@ public class APIServiceImpl {
         String timestamp = now.format(formatter);
         
         // Step 2: Find all group tracks with <REC> in their names
-        List<Track> recGroups = new ArrayList<>();
+        BitSet recPositions = trackIndex.tagged(TrackTagIndex.REC);
+        recPositions.and(trackIndex.groups());
+        List<String> recNames = new ArrayList<>();
         
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
-            Track track = allTracksBank.getItemAt(i);
-            
-            if (track.exists().get() && track.isGroup().get()) {
-                String trackName = track.name().get();
-                if (trackName.contains("<REC>")) {
-                    host.println("Found <REC> group to archive: \"" + trackName + "\"");
-                    recGroups.add(track);
-                }
-            }
+        for (int i = recPositions.nextSetBit(0); i >= 0; i = recPositions.nextSetBit(i + 1)) {
+            log.info("Found <REC> group to archive: \"" + trackIndex.getName(i) + "\"");
+            recNames.add(trackIndex.getName(i));
         }
         
-        if (recGroups.isEmpty()) {
-            host.println("ERROR: No group tracks with <REC> in name found!");
+        if (recNames.isEmpty()) {
+            log.error("ERROR: No group tracks with <REC> in name found!");
+            sendArchiveProgress("No <REC> groups");
             return;
         }
         
-        host.println("Found " + recGroups.size() + " <REC> group(s) to process");
+        int total = recNames.size();
+        log.info("Found " + total + " <REC> group(s) to process");
         
-        // Step 3: Process each group
-        processRecordGroups(recGroups, timestamp, 0);
-    }
-    
-    private void processRecordGroups(List<Track> recGroups, String timestamp, int index) {
-        if (index >= recGroups.size()) {
-            host.println("=== Record Group Creation Complete ===");
-            host.println("Processed " + recGroups.size() + " <REC> groups");
-            host.println("Original <REC> groups remain unchanged and ready for more recordings");
-            host.println("Archived groups with timestamp: " + timestamp);
-            return;
+        // Step 3: Duplicate all groups at once, the last one first so the others keep their bank positions
+        for (int i = recPositions.previousSetBit(recPositions.length() - 1); i >= 0; i = recPositions.previousSetBit(i - 1)) {
+            allTracksBank.getItemAt(i).duplicate();
+            if (log.isDebugEnabled()) {
+                log.debug("  Duplicated group: \"" + trackIndex.getName(i) + "\"");
+            }
         }
-        
-        Track recGroup = recGroups.get(index);
-        String originalName = recGroup.name().get();
-        
-        host.println("Processing <REC> group " + (index + 1) + "/" + recGroups.size() + ": \"" + originalName + "\"");
-        
-        // Duplicate the group
-        recGroup.duplicate();
-        host.println("  Duplicated group: \"" + originalName + "\"");
-        
-        // Wait for duplication, then find and configure the duplicate
-        host.scheduleTask(() -> {
-            configureGroupDuplicate(recGroup, originalName, timestamp, recGroups, index);
-        }, 800); // Wait for group duplication to complete
+        sendArchiveProgress("Duplicating 0/" + total);
+        
+        // Step 4: Configure the duplicates together as soon as all of them have appeared
+        int[] duplicatesSeen = { 0 };
+        allTracksSubscription.hold();
+        trackChanges.await("Duplicates of " + total + " <REC> group(s)", DUPLICATE_TIMEOUT_MS,
+            () -> {
+                List<Integer> duplicates = findArchiveDuplicates(recNames);
+                if (duplicates.size() != duplicatesSeen[0]) {
+                    duplicatesSeen[0] = duplicates.size();
+                    sendArchiveProgress("Duplicating " + duplicates.size() + "/" + total);
+                }
+                return duplicates.size() == total ? duplicates : null;
+            },
+            duplicates -> {
+                try {
+                    configureArchiveDuplicates(duplicates != null ? duplicates : findArchiveDuplicates(recNames), total, timestamp);
+                } finally {
+                    allTracksSubscription.release();
+                }
+            });
     }
     
-    private void configureGroupDuplicate(Track originalGroup, String originalName, String timestamp, 
-                                        List<Track> recGroups, int index) {
-        host.println("Configuring duplicate of: \"" + originalName + "\"");
-        
-        // Find the duplicate group - look for another group with the same name
-        Track duplicateGroup = null;
-        int matchCount = 0;
+    /**
+     * Positions of the duplicates of the given <REC> groups that have appeared so far. A duplicate lands right
+     * behind its original, so once a name has twice as many groups as originals every second one is a duplicate;
+     * names that are not complete yet are left out rather than guessed.
+     */
+    private List<Integer> findArchiveDuplicates(List<String> originalNames) {
+        Map<String, Integer> originalsByName = new LinkedHashMap<>();
+        for (String name : originalNames) {
+            originalsByName.merge(name, 1, Integer::sum);
+        }
         
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
-            Track track = allTracksBank.getItemAt(i);
+        List<Integer> duplicates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : originalsByName.entrySet()) {
+            BitSet matches = trackIndex.named(entry.getKey());
+            matches.and(trackIndex.groups());
+            if (matches.cardinality() < 2 * entry.getValue()) continue;
             
-            if (track.exists().get() && track.isGroup().get()) {
-                String trackName = track.name().get();
-                if (originalName.equals(trackName)) {
-                    matchCount++;
-                    if (!track.equals(originalGroup)) {
-                        duplicateGroup = track;
-                        host.println("  Found duplicate group: \"" + trackName + "\" (match " + matchCount + ")");
-                    }
+            int match = 0;
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (match++ % 2 == 1) {
+                    duplicates.add(i);
                 }
             }
         }
+        return duplicates;
+    }
+    
+    private void configureArchiveDuplicates(List<Integer> duplicatePositions, int total, String timestamp) {
+        log.info("Configuring " + duplicatePositions.size() + " archived group(s)");
+        
+        // Resolve everything first, the renames below change the name index
+        List<Track> duplicateGroups = new ArrayList<>();
+        List<String> originalNames = new ArrayList<>();
+        for (int position : duplicatePositions) {
+            duplicateGroups.add(allTracksBank.getItemAt(position));
+            originalNames.add(trackIndex.getName(position));
+        }
         
-        if (duplicateGroup != null) {
+        for (int i = 0; i < duplicateGroups.size(); i++) {
+            Track duplicateGroup = duplicateGroups.get(i);
+            String originalName = originalNames.get(i);
+            
             // Rename the duplicate group to archived format
             String baseName = originalName.replace("<REC>", "").trim();
             String archivedName = "<T>_" + timestamp + "_" + baseName;
             duplicateGroup.name().set(archivedName);
-            host.println("  Renamed duplicate to: \"" + archivedName + "\"");
+            if (log.isDebugEnabled()) {
+                log.debug("  Renamed duplicate to: \"" + archivedName + "\"");
+            }
             
-            // Configure the archived group - mute it and turn off monitoring for all tracks inside
+            // Configure the archived group - mute it
             duplicateGroup.mute().set(true);
-            host.println("  Muted archived group");
+            log.debug("  Muted archived group");
             
-            // Disarm and turn off monitoring for all tracks in the archived group
-            disarmAndTurnOffMonitoringInGroup(duplicateGroup, archivedName);
-            
-            host.println("  ✓ Completed archiving: \"" + originalName + "\"");
-        } else {
-            host.println("  ERROR: Could not find duplicate group for: \"" + originalName + "\" (found " + matchCount + " total matches)");
+            if (log.isDebugEnabled()) {
+                log.debug("  ✓ Completed archiving: \"" + originalName + "\"");
+            }
+        }
+        
+        // Disarm and turn off monitoring for the tracks in the archived groups
+        if (!duplicateGroups.isEmpty()) {
+            disarmAndTurnOffMonitoringInArchivedGroups(duplicateGroups.size());
         }
         
-        // Process next group
-        processRecordGroups(recGroups, timestamp, index + 1);
+        int missing = total - duplicateGroups.size();
+        log.info("=== Record Group Creation Complete ===");
+        log.info("Processed " + total + " <REC> groups");
+        if (missing > 0) {
+            log.error("ERROR: Could not find the duplicates of " + missing + " <REC> group(s)");
+        }
+        log.info("Original <REC> groups remain unchanged and ready for more recordings");
+        log.info("Archived groups with timestamp: " + timestamp);
+        sendArchiveProgress(missing == 0
+            ? "Archived " + total + "/" + total
+            : "Archived " + duplicateGroups.size() + "/" + total + ", " + missing + " missing");
     }
     
-    private void disarmAndTurnOffMonitoringInGroup(Track groupTrack, String groupName) {
-        host.println("  Configuring tracks inside archived group: \"" + groupName + "\"");
+    private void sendArchiveProgress(String status) {
+        if (oscManager != null) {
+            oscManager.sendArchiveProgress(status);
+        }
+    }
+    
+    private void disarmAndTurnOffMonitoringInArchivedGroups(int groupCount) {
+        log.info("  Configuring tracks inside " + groupCount + " archived group(s)");
         
         int tracksProcessed = 0;
         int tracksDisarmed = 0;
         int monitoringTurnedOff = 0;
         
-        // Process all tracks in the flat track bank to find tracks inside this group
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
+        // Process all non-group tracks in the flat track bank to find tracks inside these groups
+        BitSet tracks = trackIndex.existing();
+        tracks.andNot(trackIndex.groups());
+        for (int i = tracks.nextSetBit(0); i >= 0; i = tracks.nextSetBit(i + 1)) {
             Track track = allTracksBank.getItemAt(i);
             
-            if (track.exists().get() && !track.isGroup().get()) {
-                // Check if this track is inside our group by checking if it comes after the group
-                // and doesn't belong to another group (simplified check)
-                tracksProcessed++;
-                
-                // Disarm the track
-                if (track.arm().get()) {
-                    track.arm().set(false);
-                    tracksDisarmed++;
-                }
-                
-                // Turn off monitoring
-                String currentMonitorMode = track.monitorMode().get();
-                if (!"OFF".equals(currentMonitorMode)) {
-                    track.monitorMode().set("OFF");
-                    monitoringTurnedOff++;
-                }
+            // Check if this track is inside our group by checking if it comes after the group
+            // and doesn't belong to another group (simplified check)
+            tracksProcessed++;
+            
+            // Disarm the track
+            if (track.arm().get()) {
+                track.arm().set(false);
+                tracksDisarmed++;
+            }
+            
+            // Turn off monitoring
+            String currentMonitorMode = track.monitorMode().get();
+            if (!"OFF".equals(currentMonitorMode)) {
+                track.monitorMode().set("OFF");
+                monitoringTurnedOff++;
             }
         }
         
-        host.println("    Processed tracks in archived group: " + tracksProcessed);
-        host.println("    Tracks disarmed: " + tracksDisarmed);
-        host.println("    Monitoring turned off: " + monitoringTurnedOff);
+        log.info("    Processed tracks in archived groups: " + tracksProcessed);
+        log.info("    Tracks disarmed: " + tracksDisarmed);
+        log.info("    Monitoring turned off: " + monitoringTurnedOff);
     }
     
     public void sendTransitionNames() {
-        host.println("=== Sending Transition Names ===");
+        log.info("=== Sending Transition Names ===");
         
         if (!cursorTrack.exists().get()) {
-            host.println("ERROR: No track selected (cursor track does not exist)");
+            log.error("ERROR: No track selected (cursor track does not exist)");
             return;
         }
         
         String trackName = cursorTrack.name().get();
         boolean isGroupTrack = cursorTrack.isGroup().get();
         
-        host.println("Selected track: \"" + trackName + "\" (type: " + (isGroupTrack ? "Group" : "Regular") + ")");
+        log.info("Selected track: \"" + trackName + "\" (type: " + (isGroupTrack ? "Group" : "Regular") + ")");
         
         if (oscManager == null) {
-            host.println("ERROR: OSC Manager not available");
+            log.error("ERROR: OSC Manager not available");
             return;
         }
         
         if (cursorTrackClipBank == null) {
-            host.println("ERROR: Clip launcher slot bank not available");
+            log.error("ERROR: Clip launcher slot bank not available");
             return;
         }
         
         int clipsFound = 0;
         int clipsSent = 0;
+        int slotsCleared = 0;
         
         if (isGroupTrack) {
-            host.println("Scanning group track clip slots (sub-scenes for group)...");
+            log.info("Scanning group track clip slots (sub-scenes for group)...");
         } else {
-            host.println("Scanning regular track clip slots...");
+            log.info("Scanning regular track clip slots...");
         }
         
-        // Go through all clip slots in the cursor track (works for both regular and group tracks)
-        for (int i = 0; i < cursorTrackClipBank.getSizeOfBank(); i++) {
+        // Go through all clip slots in the cursor track (works for both regular and group tracks).
+        // Every slot is sent, empty ones as "", so names of the previously selected track do not linger
+        int slotCount = cursorTrackClipBank.getSizeOfBank();
+        String[] names = new String[slotCount];
+        for (int i = 0; i < slotCount; i++) {
             ClipLauncherSlot slot = cursorTrackClipBank.getItemAt(i);
-            
             if (slot.exists().get() && slot.hasContent().get()) {
                 clipsFound++;
-                String clipName = slot.name().get();
-                int zeroBasedIndex = i; // Keep 0-based indexing
-                
-                if (isGroupTrack) {
-                    // For group tracks, always send sub-scene names (even if default)
-                    String subSceneName = (clipName != null && !clipName.trim().isEmpty()) 
-                        ? clipName 
-                        : "sub- " + zeroBasedIndex;
-                    
-                    oscManager.sendTransitionName(zeroBasedIndex, subSceneName);
-                    clipsSent++;
-                    host.println("  Sub-scene " + zeroBasedIndex + ": \"" + subSceneName + "\"");
-                } else {
-                    // For regular tracks, only send if clip has a custom name
-                    if (clipName != null && !clipName.trim().isEmpty()) {
-                        oscManager.sendTransitionName(zeroBasedIndex, clipName);
-                        clipsSent++;
-                        host.println("  Slot " + zeroBasedIndex + ": \"" + clipName + "\"");
-                    } else {
-                        host.println("  Slot " + zeroBasedIndex + ": [unnamed clip - not sent]");
-                    }
+            }
+            names[i] = getTransitionName(i);
+        }
+        
+        // Compact snapshots carry the whole bank as /transition/bank, empty slots are left out of it
+        boolean compact = oscManager.isCompactSnapshots();
+        if (compact) {
+            oscManager.sendNameBank(OSCAddressTable.TRANSITION_NAMES, names, 0, slotCount);
+        } else {
+            oscManager.beginBatch();
+        }
+        for (int i = 0; i < slotCount; i++) {
+            String name = names[i];
+            if (!compact) {
+                oscManager.sendTransitionName(i, name);
+            }
+            if (name.isEmpty()) {
+                slotsCleared++;
+            } else {
+                clipsSent++;
+                if (log.isDebugEnabled()) {
+                    log.debug("  " + (isGroupTrack ? "Sub-scene " : "Slot ") + i + ": \"" + name + "\"");
                 }
             }
         }
+        if (!compact) {
+            oscManager.endBatch("transition names");
+        }
         
-        host.println("=== Transition Names Complete ===");
-        host.println("Track: \"" + trackName + "\" (" + (isGroupTrack ? "Group" : "Regular") + ")");
-        host.println((isGroupTrack ? "Sub-scenes" : "Clips") + " found: " + clipsFound);
-        host.println("Names sent: " + clipsSent);
+        log.info("=== Transition Names Complete ===");
+        log.info("Track: \"" + trackName + "\" (" + (isGroupTrack ? "Group" : "Regular") + ")");
+        log.info((isGroupTrack ? "Sub-scenes" : "Clips") + " found: " + clipsFound);
+        log.info("Names sent: " + clipsSent + ", slots cleared: " + slotsCleared);
         
         if (clipsSent == 0) {
             if (isGroupTrack) {
-                host.println("No named sub-scenes found in selected group track!");
+                log.info("No named sub-scenes found in selected group track!");
             } else {
-                host.println("No named clips found in selected track!");
+                log.info("No named clips found in selected track!");
             }
         }
     }
     
     public void triggerTransitionSlot(int zeroBasedIndex) {
-        host.println("=== Triggering Transition Slot ===");
+        log.info("=== Triggering Transition Slot ===");
         
         if (!cursorTrack.exists().get()) {
-            host.println("ERROR: No track selected (cursor track does not exist)");
+            log.error("ERROR: No track selected (cursor track does not exist)");
             return;
         }
         
         if (cursorTrackClipBank == null) {
-            host.println("ERROR: Clip launcher slot bank not available");
+            log.error("ERROR: Clip launcher slot bank not available");
             return;
         }
         
@@ -632,116 +828,118 @@ public class APIServiceImpl {
         boolean isGroupTrack = cursorTrack.isGroup().get();
         
         if (zeroBasedIndex < 0 || zeroBasedIndex >= cursorTrackClipBank.getSizeOfBank()) {
-            host.println("ERROR: Invalid slot index " + zeroBasedIndex + " (valid range: 0-" + (cursorTrackClipBank.getSizeOfBank() - 1) + ")");
+            log.error("ERROR: Invalid slot index " + zeroBasedIndex + " (valid range: 0-" + (cursorTrackClipBank.getSizeOfBank() - 1) + ")");
             return;
         }
         
         ClipLauncherSlot slot = cursorTrackClipBank.getItemAt(zeroBasedIndex);
         
         if (!slot.exists().get()) {
-            host.println("ERROR: Slot " + zeroBasedIndex + " does not exist on track \"" + trackName + "\"");
+            log.error("ERROR: Slot " + zeroBasedIndex + " does not exist on track \"" + trackName + "\"");
             return;
         }
         
         if (!slot.hasContent().get()) {
-            host.println("WARNING: Slot " + zeroBasedIndex + " is empty on track \"" + trackName + "\" - triggering anyway");
+            log.warn("WARNING: Slot " + zeroBasedIndex + " is empty on track \"" + trackName + "\" - triggering anyway");
         }
         
         // Trigger the slot
         slot.launch();
         
         if (isGroupTrack) {
-            host.println("Triggered sub-scene " + zeroBasedIndex + " on group track \"" + trackName + "\"");
+            log.info("Triggered sub-scene " + zeroBasedIndex + " on group track \"" + trackName + "\"");
         } else {
-            host.println("Triggered clip slot " + zeroBasedIndex + " on track \"" + trackName + "\"");
+            log.info("Triggered clip slot " + zeroBasedIndex + " on track \"" + trackName + "\"");
         }
     }
     
     private Track findLastTrackWithName(String targetName, Track excludeTrack) {
         // Find the last track in the bank with the target name, excluding the specified track
-        Track lastMatch = null;
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
+        BitSet matches = trackIndex.named(targetName);
+        matches.andNot(trackIndex.groups());
+        for (int i = matches.previousSetBit(matches.length() - 1); i >= 0; i = matches.previousSetBit(i - 1)) {
             Track track = allTracksBank.getItemAt(i);
-            
-            if (track.exists().get() && 
-                !track.isGroup().get() && 
-                !track.equals(excludeTrack) &&
-                targetName.equals(track.name().get())) {
-                lastMatch = track; // Keep finding, the last one should be the newest
+            if (!track.equals(excludeTrack)) {
+                return track; // The last one should be the newest
             }
         }
-        return lastMatch;
+        return null;
     }
     
     private void configureDuplicatedTracks(List<String> originalTrackNames, String timestamp) {
-        host.println("=== Configuring Duplicated Tracks ===");
-        host.println("Looking for duplicates of " + originalTrackNames.size() + " tracks...");
+        log.info("=== Configuring Duplicated Tracks ===");
+        log.info("Looking for duplicates of " + originalTrackNames.size() + " tracks...");
         
         int duplicatesProcessed = 0;
         
         for (String originalName : originalTrackNames) {
-            host.println("Searching for duplicate of: \"" + originalName + "\"");
+            if (log.isDebugEnabled()) {
+                log.debug("Searching for duplicate of: \"" + originalName + "\"");
+            }
             
             // Find the duplicate track - look for a track with the same name but different instance
             Track duplicateTrack = null;
             int matchCount = 0;
             
-            for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
-                Track track = allTracksBank.getItemAt(i);
-                
-                if (track.exists().get() && !track.isGroup().get()) {
-                    String trackName = track.name().get();
-                    if (originalName.equals(trackName)) {
-                        matchCount++;
-                        if (matchCount == 2) {
-                            // The second match should be the duplicate
-                            duplicateTrack = track;
-                            break;
-                        }
-                    }
+            BitSet matches = trackIndex.named(originalName);
+            matches.andNot(trackIndex.groups());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                matchCount++;
+                if (matchCount == 2) {
+                    // The second match should be the duplicate
+                    duplicateTrack = allTracksBank.getItemAt(i);
+                    break;
                 }
             }
             
             if (duplicateTrack != null) {
-                host.println("  Found duplicate track: \"" + duplicateTrack.name().get() + "\"");
+                if (log.isDebugEnabled()) {
+                    log.debug("  Found duplicate track: \"" + duplicateTrack.name().get() + "\"");
+                }
                 
                 // Rename the duplicate: <R>TrackName -> <T>_YYYY-MM-DD-HH-MM_TrackName
                 String baseName = originalName.replace("<R>", "").trim();
                 String archivedName = "<T>_" + timestamp + "_" + baseName;
                 
                 duplicateTrack.name().set(archivedName);
-                host.println("  Renamed to: \"" + archivedName + "\"");
+                if (log.isDebugEnabled()) {
+                    log.debug("  Renamed to: \"" + archivedName + "\"");
+                }
                 
                 // Configure the archived duplicate
                 String currentMonitorMode = duplicateTrack.monitorMode().get();
                 if (!"OFF".equals(currentMonitorMode)) {
                     duplicateTrack.monitorMode().set("OFF");
-                    host.println("  Turned off monitoring (was: " + currentMonitorMode + ")");
+                    if (log.isDebugEnabled()) {
+                        log.debug("  Turned off monitoring (was: " + currentMonitorMode + ")");
+                    }
                 }
                 
                 if (duplicateTrack.arm().get()) {
                     duplicateTrack.arm().set(false);
-                    host.println("  Disarmed track");
+                    log.debug("  Disarmed track");
                 }
                 
                 // Mute the archived track
                 duplicateTrack.mute().set(true);
-                host.println("  Muted archived track");
+                log.debug("  Muted archived track");
                 
                 duplicatesProcessed++;
-                host.println("  ✓ Completed: \"" + originalName + "\"");
+                if (log.isDebugEnabled()) {
+                    log.debug("  ✓ Completed: \"" + originalName + "\"");
+                }
             } else {
-                host.println("  ERROR: Could not find duplicate for: \"" + originalName + "\" (found " + matchCount + " matches)");
+                log.error("  ERROR: Could not find duplicate for: \"" + originalName + "\" (found " + matchCount + " matches)");
             }
         }
         
-        host.println("=== Record Group Creation Complete ===");
-        host.println("Original <R> tracks remain unchanged and ready for more recordings");
-        host.println("Archived " + duplicatesProcessed + "/" + originalTrackNames.size() + " tracks with timestamp: " + timestamp);
+        log.info("=== Record Group Creation Complete ===");
+        log.info("Original <R> tracks remain unchanged and ready for more recordings");
+        log.info("Archived " + duplicatesProcessed + "/" + originalTrackNames.size() + " tracks with timestamp: " + timestamp);
     }
     
     private void duplicateAndArchiveRTracks(List<Track> tracksToArchive, String timestamp) {
-        host.println("Processing " + tracksToArchive.size() + " tracks for archival...");
+        log.info("Processing " + tracksToArchive.size() + " tracks for archival...");
         
         // Process tracks one by one sequentially to avoid confusion
         processNextRTrack(tracksToArchive, 0, timestamp);
@@ -750,70 +948,77 @@ public class APIServiceImpl {
     private void processNextRTrack(List<Track> tracksToArchive, int index, String timestamp) {
         if (index >= tracksToArchive.size()) {
             // All tracks processed
-            host.println("=== Record Group Creation Complete ===");
-            host.println("Original <R> tracks remain unchanged and ready for more recordings");
-            host.println("Archived " + tracksToArchive.size() + " tracks with timestamp: " + timestamp);
+            log.info("=== Record Group Creation Complete ===");
+            log.info("Original <R> tracks remain unchanged and ready for more recordings");
+            log.info("Archived " + tracksToArchive.size() + " tracks with timestamp: " + timestamp);
             return;
         }
         
         Track originalTrack = tracksToArchive.get(index);
         String originalName = originalTrack.name().get();
         
-        host.println("Processing track " + (index + 1) + "/" + tracksToArchive.size() + ": \"" + originalName + "\"");
+        if (log.isDebugEnabled()) {
+            log.debug("Processing track " + (index + 1) + "/" + tracksToArchive.size() + ": \"" + originalName + "\"");
+        }
         
         // Duplicate the track
         originalTrack.duplicate();
         
-        // Wait, then find and configure the duplicate
-        host.scheduleTask(() -> {
-            // Instead of findNewestTrack, look for a track with the same name as original
-            Track duplicateTrack = findTrackByName(originalName, originalTrack);
-            
-            if (duplicateTrack != null) {
-                host.println("  Found duplicate track: \"" + duplicateTrack.name().get() + "\"");
-                
-                // Rename the duplicate track: <R>TrackName -> <T>_YYYY-MM-DD-HH-MM_TrackName
-                String baseName = originalName.replace("<R>", "").trim();
-                String archivedName = "<T>_" + timestamp + "_" + baseName;
-                
-                duplicateTrack.name().set(archivedName);
-                host.println("  Renamed to: \"" + archivedName + "\"");
-                
-                // Configure the archived duplicate
-                String currentMonitorMode = duplicateTrack.monitorMode().get();
-                if (!"OFF".equals(currentMonitorMode)) {
-                    duplicateTrack.monitorMode().set("OFF");
-                    host.println("  Turned off monitoring (was: " + currentMonitorMode + ")");
-                }
-                
-                if (duplicateTrack.arm().get()) {
-                    duplicateTrack.arm().set(false);
-                    host.println("  Disarmed track");
+        // As soon as it appears, configure the duplicate
+        // Instead of findNewestTrack, look for a track with the same name as original
+        trackChanges.await("  Duplicate of \"" + originalName + "\"", DUPLICATE_TIMEOUT_MS,
+            () -> findTrackByName(originalName, originalTrack),
+            duplicateTrack -> {
+                if (duplicateTrack != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("  Found duplicate track: \"" + duplicateTrack.name().get() + "\"");
+                    }
+                    
+                    // Rename the duplicate track: <R>TrackName -> <T>_YYYY-MM-DD-HH-MM_TrackName
+                    String baseName = originalName.replace("<R>", "").trim();
+                    String archivedName = "<T>_" + timestamp + "_" + baseName;
+                    
+                    duplicateTrack.name().set(archivedName);
+                    if (log.isDebugEnabled()) {
+                        log.debug("  Renamed to: \"" + archivedName + "\"");
+                    }
+                    
+                    // Configure the archived duplicate
+                    String currentMonitorMode = duplicateTrack.monitorMode().get();
+                    if (!"OFF".equals(currentMonitorMode)) {
+                        duplicateTrack.monitorMode().set("OFF");
+                        if (log.isDebugEnabled()) {
+                            log.debug("  Turned off monitoring (was: " + currentMonitorMode + ")");
+                        }
+                    }
+                    
+                    if (duplicateTrack.arm().get()) {
+                        duplicateTrack.arm().set(false);
+                        log.debug("  Disarmed track");
+                    }
+                    
+                    // Mute the archived track
+                    duplicateTrack.mute().set(true);
+                    log.debug("  Muted archived track");
+                    
+                    if (log.isDebugEnabled()) {
+                        log.debug("  ✓ Completed: \"" + originalName + "\"");
+                    }
+                } else {
+                    log.error("  ERROR: Could not find duplicate for: \"" + originalName + "\"");
                 }
                 
-                // Mute the archived track
-                duplicateTrack.mute().set(true);
-                host.println("  Muted archived track");
-                
-                host.println("  ✓ Completed: \"" + originalName + "\"");
-            } else {
-                host.println("  ERROR: Could not find duplicate for: \"" + originalName + "\"");
-            }
-            
-            // Process next track
-            processNextRTrack(tracksToArchive, index + 1, timestamp);
-            
-        }, 500); // Wait longer for duplication to complete
+                // Process next track
+                processNextRTrack(tracksToArchive, index + 1, timestamp);
+            });
     }
     
     // Find a track by name, excluding the original track
     private Track findTrackByName(String targetName, Track excludeTrack) {
-        for (int i = 0; i < allTracksBank.getSizeOfBank(); i++) {
+        BitSet matches = trackIndex.named(targetName);
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
             Track track = allTracksBank.getItemAt(i);
-            
-            if (track.exists().get() && 
-                !track.equals(excludeTrack) && 
-                targetName.equals(track.name().get())) {
+            if (!track.equals(excludeTrack)) {
                 return track;
             }
         }
@@ -0,0 +1,167 @@
+package com.systemexklusiv.services;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.Subscribable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a bank that only bulk operations need unsubscribed while nobody uses it, so Bitwig does not
+ * stream its values the rest of the time. use() subscribes on demand, waits until the bank's values
+ * have arrived and then runs the operation; once the bank has been idle for the idle timeout it is
+ * unsubscribed again. An idle timeout of 0 keeps the bank subscribed.
+ *
+ * Operations that keep using the bank after use() returns (e.g. while waiting for duplicates) hold()
+ * it until they release() it. Everything runs on the host thread.
+ */
+public class BankSubscription {
+
+    public interface ReadyProbe {
+        /**
+         * Returns true once the values of the freshly subscribed bank have been delivered.
+         *
+         * @param subscribedNanos System.nanoTime() of the subscribe, only deliveries after it count
+         */
+        boolean isReady(long subscribedNanos);
+    }
+
+    // Operations still run if the values have not all arrived by then
+    private static final long READY_TIMEOUT_MS = 2000;
+
+    private final ControllerHost host;
+    private final ExtensionLogger log;
+    private final String label;
+    private final Subscribable bank;
+    private final TrackChangeWaiter waiter;
+    private final ReadyProbe readyProbe;
+
+    private long idleTimeoutMillis;
+    private boolean ready = false;
+    private final List<Runnable> waitingOperations = new ArrayList<>();
+    private int holds = 0;
+    private long lastUseNanos = 0;
+    private boolean idleCheckScheduled = false;
+
+    private long subscribeCount = 0;
+    private long totalReadyMillis = 0;
+    private long maxReadyMillis = 0;
+
+    public BankSubscription(ControllerHost host, ExtensionLogger log, String label, Subscribable bank,
+                            TrackChangeWaiter waiter, ReadyProbe readyProbe) {
+        this.host = host;
+        this.log = log;
+        this.label = label;
+        this.bank = bank;
+        this.waiter = waiter;
+        this.readyProbe = readyProbe;
+    }
+
+    /**
+     * Sets how long the bank stays subscribed after its last use, 0 keeps it subscribed.
+     */
+    public void setIdleTimeout(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = Math.max(idleTimeoutMillis, 0);
+        if (this.idleTimeoutMillis == 0) {
+            subscribe();
+        } else if (!ready && waitingOperations.isEmpty() && bank.isSubscribed()) {
+            unsubscribe("before first use");  // Banks start out subscribed
+        } else {
+            scheduleIdleCheck();
+        }
+    }
+
+    /**
+     * Runs the operation now if the bank is ready, otherwise subscribes and runs it once the values are in.
+     */
+    public void use(String operation, Runnable action) {
+        lastUseNanos = System.nanoTime();
+        if (ready) {
+            action.run();
+            scheduleIdleCheck();
+            return;
+        }
+
+        waitingOperations.add(action);
+        if (waitingOperations.size() > 1) return;  // Already subscribing
+
+        long subscribeNanos = System.nanoTime();
+        subscribe();
+        waiter.await(label + " for " + operation, READY_TIMEOUT_MS,
+            () -> readyProbe.isReady(subscribeNanos) ? Boolean.TRUE : null,
+            populated -> {
+                long readyMillis = (System.nanoTime() - subscribeNanos) / 1_000_000;
+                subscribeCount++;
+                totalReadyMillis += readyMillis;
+                maxReadyMillis = Math.max(maxReadyMillis, readyMillis);
+                this.ready = true;
+
+                List<Runnable> operations = new ArrayList<>(waitingOperations);
+                waitingOperations.clear();
+                for (Runnable waiting : operations) {
+                    waiting.run();
+                }
+                lastUseNanos = System.nanoTime();
+                scheduleIdleCheck();
+            });
+    }
+
+    public void hold() {
+        holds++;
+    }
+
+    public void release() {
+        holds = Math.max(holds - 1, 0);
+        lastUseNanos = System.nanoTime();
+        scheduleIdleCheck();
+    }
+
+    private void subscribe() {
+        if (!bank.isSubscribed()) {
+            bank.subscribe();
+        }
+        if (idleTimeoutMillis == 0) {
+            ready = true;  // Always subscribed, the values stay current
+        }
+    }
+
+    private void scheduleIdleCheck() {
+        if (idleTimeoutMillis == 0 || idleCheckScheduled) return;
+
+        idleCheckScheduled = true;
+        host.scheduleTask(this::checkIdle, idleTimeoutMillis);
+    }
+
+    private void checkIdle() {
+        idleCheckScheduled = false;
+        if (idleTimeoutMillis == 0 || !waitingOperations.isEmpty() || holds > 0) {
+            scheduleIdleCheck();
+            return;
+        }
+
+        long idleMillis = (System.nanoTime() - lastUseNanos) / 1_000_000;
+        if (idleMillis < idleTimeoutMillis) {
+            idleCheckScheduled = true;
+            host.scheduleTask(this::checkIdle, idleTimeoutMillis - idleMillis);
+            return;
+        }
+
+        unsubscribe("after " + idleMillis + " ms idle");
+    }
+
+    private void unsubscribe(String reason) {
+        if (bank.isSubscribed()) {
+            bank.unsubscribe();
+            log.info(label + " unsubscribed " + reason);
+        }
+        ready = false;
+    }
+
+    public String describe() {
+        if (subscribeCount == 0) {
+            return label + " " + (ready ? "subscribed" : "not subscribed yet");
+        }
+        return label + " subscribed " + subscribeCount + " time(s), ready after avg "
+            + (totalReadyMillis / subscribeCount) + " ms, max " + maxReadyMillis + " ms";
+    }
+}
@@ -8,7 +8,6 @@ public class CueMarkerServiceImpl {
     private APIServiceImpl apiService;
     private OSCManagerImpl oscManager;
     private boolean isMonitoring = false;
-    private int lastCueMarkerCount = -1;
     
     public void initialize(APIServiceImpl apiService, OSCManagerImpl oscManager) {
         this.apiService = apiService;
@@ -50,9 +49,31 @@ public class CueMarkerServiceImpl {
     }
     
     public void broadcastAllCueMarkers() {
-        for (int i = 0; i < apiService.getCueMarkerBank().getSizeOfBank(); i++) {
+        broadcastCueMarkers(0, apiService.getCueMarkerBank().getSizeOfBank());
+    }
+    
+    /**
+     * Sends count cue marker names starting at offset, clamped to the bank.
+     */
+    public void broadcastCueMarkers(int offset, int count) {
+        int start = Math.max(offset, 0);
+        int end = (int) Math.min((long) start + count, apiService.getCueMarkerBank().getSizeOfBank());
+        
+        if (oscManager.isCompactSnapshots()) {
+            // Indexed by slot, like the bank itself
+            String[] names = new String[Math.max(end, 0)];
+            for (int i = start; i < end; i++) {
+                names[i] = apiService.getCueMarkerName(i);
+            }
+            oscManager.sendNameBank(OSCAddressTable.CUE_NAMES, names, start, end - start);
+            return;
+        }
+        
+        oscManager.beginBatch();
+        for (int i = start; i < end; i++) {
             broadcastCueMarker(i);  // OSC uses 0-based indexing
         }
+        oscManager.endBatch("cue marker names");
     }
     
     public void broadcastCueMarker(int index) {
@@ -63,14 +84,10 @@ public class CueMarkerServiceImpl {
     public void broadcastCueMarkerCount() {
         int count = apiService.getCueMarkerCount();
         oscManager.sendCueMarkerCount(count);
-        lastCueMarkerCount = count;
     }
     
     private void updateCueMarkerCountIfChanged() {
-        int currentCount = apiService.getCueMarkerCount();
-        if (currentCount != lastCueMarkerCount) {
-            oscManager.sendCueMarkerCount(currentCount);
-            lastCueMarkerCount = currentCount;
-        }
+        // The OSC manager's shadow state drops the send when the count did not change
+        broadcastCueMarkerCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package com.systemexklusiv.services;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Level gated logging for the extension. Callers only hand the message to a preallocated ring buffer,
+ * a background thread prints it to the Bitwig console and appends it to a rotating log file, so bulk
+ * operations no longer block the host thread on console output.
+ *
+ * Messages below the level are dropped before they are queued; guard debug lines that build their
+ * message with isDebugEnabled(), so nothing is allocated while debug is off. When the ring is full
+ * new messages are dropped and counted, like the send queues do.
+ */
+public class ExtensionLogger {
+
+    public static final int ERROR = 0;
+    public static final int WARN = 1;
+    public static final int INFO = 2;
+    public static final int DEBUG = 3;
+    private static final String[] LEVEL_LABELS = { "ERROR", "WARN", "INFO", "DEBUG" };
+
+    private static final int RING_SIZE = 4096;
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    private static final int KEPT_FILES = 3;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final ControllerHost host;
+    private volatile int level = INFO;
+
+    // Ring of pending messages, guarded by this
+    private final long[] times = new long[RING_SIZE];
+    private final int[] levels = new int[RING_SIZE];
+    private final String[] messages = new String[RING_SIZE];
+    private int head = 0;
+    private int size = 0;
+    private long droppedMessages = 0;
+    private boolean closed = false;
+
+    private final Thread writerThread;
+    private File logFile;
+
+    // Only touched by the writer thread
+    private File openFile;
+    private OutputStream fileOut;
+    private long fileBytes;
+
+    public ExtensionLogger(ControllerHost host) {
+        this.host = host;
+        this.writerThread = new Thread(this::writeLoop, "OSC Project Manager Log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public boolean isDebugEnabled() {
+        return DEBUG <= level;
+    }
+
+    /**
+     * Appends to file (rotated to file.1 .. file.3 at 1 MB) from now on, null stops writing a file.
+     */
+    public synchronized void setLogFile(File file) {
+        logFile = file;
+        notifyAll();  // The writer opens it with the next message
+    }
+
+    public void error(String message) {
+        log(ERROR, message);
+    }
+
+    public void warn(String message) {
+        log(WARN, message);
+    }
+
+    public void info(String message) {
+        log(INFO, message);
+    }
+
+    public void debug(String message) {
+        log(DEBUG, message);
+    }
+
+    public void log(int level, String message) {
+        if (level > this.level) return;
+
+        synchronized (this) {
+            if (closed || size == RING_SIZE) {
+                droppedMessages++;
+                return;
+            }
+            int slot = (head + size) % RING_SIZE;
+            times[slot] = System.currentTimeMillis();
+            levels[slot] = level;
+            messages[slot] = message;
+            if (size++ == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * Writes out what is still pending and stops the writer thread.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        long[] batchTimes = new long[RING_SIZE];
+        int[] batchLevels = new int[RING_SIZE];
+        String[] batchMessages = new String[RING_SIZE];
+        long reportedDrops = 0;
+
+        while (true) {
+            int count;
+            long drops;
+            File file;
+            boolean stopping;
+            synchronized (this) {
+                while (size == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                count = size;
+                for (int i = 0; i < count; i++) {
+                    int slot = (head + i) % RING_SIZE;
+                    batchTimes[i] = times[slot];
+                    batchLevels[i] = levels[slot];
+                    batchMessages[i] = messages[slot];
+                    messages[slot] = null;
+                }
+                head = (head + count) % RING_SIZE;
+                size = 0;
+                drops = droppedMessages;
+                file = logFile;
+                stopping = closed;
+            }
+
+            updateFile(file);
+            if (drops > reportedDrops) {
+                write(System.currentTimeMillis(), WARN, "Log buffer full, dropped " + (drops - reportedDrops) + " message(s)");
+                reportedDrops = drops;
+            }
+            for (int i = 0; i < count; i++) {
+                write(batchTimes[i], batchLevels[i], batchMessages[i]);
+                batchMessages[i] = null;
+            }
+            flushFile();
+
+            if (stopping) {
+                updateFile(null);
+                return;
+            }
+        }
+    }
+
+    private void write(long time, int level, String message) {
+        if (level <= WARN) {
+            host.errorln(message);
+        } else if (level == DEBUG) {
+            host.println("[DEBUG] " + message);
+        } else {
+            host.println(message);
+        }
+
+        if (fileOut == null) return;
+        String line = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time)) + " " + LEVEL_LABELS[level] + " " + message + "\n";
+        byte[] encoded = line.getBytes(StandardCharsets.UTF_8);  // Rotation counts bytes, not chars
+        try {
+            fileOut.write(encoded);
+            fileBytes += encoded.length;
+            if (fileBytes >= MAX_FILE_BYTES) {
+                rotate();
+            }
+        } catch (IOException e) {
+            host.errorln("Log file write failed, no longer writing " + openFile + " - " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    // Opens, switches or closes the file on the writer thread
+    private void updateFile(File file) {
+        if (file == null ? openFile == null : file.equals(openFile)) return;
+
+        closeFile();
+        openFile = file;
+        if (file == null) return;
+
+        try {
+            File directory = file.getAbsoluteFile().getParentFile();
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+            fileBytes = file.length();
+            fileOut = new BufferedOutputStream(new FileOutputStream(file, true));
+        } catch (IOException e) {
+            host.errorln("Cannot open log file " + file + " - " + e.getMessage());
+            fileOut = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        fileOut.close();
+        fileOut = null;
+
+        for (int i = KEPT_FILES - 1; i >= 1; i--) {
+            File older = new File(openFile.getPath() + "." + i);
+            if (older.exists()) {
+                File newer = new File(openFile.getPath() + "." + (i + 1));
+                newer.delete();
+                older.renameTo(newer);
+            }
+        }
+        File first = new File(openFile.getPath() + ".1");
+        first.delete();
+        openFile.renameTo(first);
+
+        fileBytes = 0;
+        fileOut = new BufferedOutputStream(new FileOutputStream(openFile, false));
+    }
+
+    private void flushFile() {
+        if (fileOut == null) return;
+        try {
+            fileOut.flush();
+        } catch (IOException e) {
+            host.errorln("Log file write failed - " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void closeFile() {
+        if (fileOut == null) return;
+        try {
+            fileOut.close();
+        } catch (IOException e) {
+            // Nothing more to write anyway
+        }
+        fileOut = null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.systemexklusiv.services;
+
+/**
+ * Every outgoing OSC address, numbered and pre-encoded once at startup.
+ * The name banks occupy ids bank * slotCount + index, the cue amount follows after the last bank,
+ * then one compact snapshot address per bank, the bundle execution time reply, the archive progress
+ * and the scene amount.
+ */
+public class OSCAddressTable {
+
+    public static final int CUE_NAMES = 0;
+    public static final int SCENE_NAMES = 1;
+    public static final int TRANSITION_NAMES = 2;
+    public static final int NAME_BANK_COUNT = 3;
+    public static final String[] NAME_BANK_LABELS = { "cue", "scene", "transition" };
+
+    private static final String[] NAME_PREFIXES = {
+        OSCManagerImpl.CUE_SEND_NAME_OSC_PATH,
+        OSCManagerImpl.SCENE_SEND_NAME_OSC_PATH,
+        OSCManagerImpl.TRANSITION_SEND_NAME_OSC_PATH
+    };
+
+    private static final String[] BANK_SNAPSHOT_PATHS = {
+        OSCManagerImpl.CUE_BANK_OSC_PATH,
+        OSCManagerImpl.SCENE_BANK_OSC_PATH,
+        OSCManagerImpl.TRANSITION_BANK_OSC_PATH
+    };
+
+    private final int slotCount;
+    private final int cueAmountId;
+    private final String[] addresses;
+    private final byte[][] encodedAddresses;
+
+    public OSCAddressTable(int slotCount) {
+        this.slotCount = slotCount;
+        this.cueAmountId = NAME_BANK_COUNT * slotCount;
+        this.addresses = new String[cueAmountId + 1 + NAME_BANK_COUNT + 3];
+        this.encodedAddresses = new byte[addresses.length][];
+
+        for (int bank = 0; bank < NAME_BANK_COUNT; bank++) {
+            for (int index = 0; index < slotCount; index++) {
+                register(bank * slotCount + index, NAME_PREFIXES[bank] + index);
+            }
+        }
+        register(cueAmountId, OSCManagerImpl.CUE_AMOUNT_PATH);
+        for (int bank = 0; bank < NAME_BANK_COUNT; bank++) {
+            register(bankSnapshotId(bank), BANK_SNAPSHOT_PATHS[bank]);
+        }
+        register(batchDoneId(), OSCManagerImpl.BATCH_DONE_OSC_PATH);
+        register(archiveProgressId(), OSCManagerImpl.ARCHIVE_PROGRESS_OSC_PATH);
+        register(sceneAmountId(), OSCManagerImpl.SCENE_AMOUNT_PATH);
+    }
+
+    private void register(int id, String address) {
+        addresses[id] = address;
+        encodedAddresses[id] = OSCEncoder.encodeAddress(address);
+    }
+
+    /**
+     * Returns the id of /cue/name/N, /scene/name/N or /transition/name/N, or -1 if the index is out of range.
+     */
+    public int nameAddressId(int bank, int index) {
+        if (index < 0 || index >= slotCount) {
+            return -1;
+        }
+        return bank * slotCount + index;
+    }
+
+    /**
+     * Returns the name bank the id belongs to, or -1 for addresses outside the name banks.
+     */
+    public int bankOf(int id) {
+        return id < cueAmountId ? id / slotCount : -1;
+    }
+
+    public int indexOf(int id) {
+        return id < cueAmountId ? id % slotCount : -1;
+    }
+
+    public int cueAmountId() {
+        return cueAmountId;
+    }
+
+    /**
+     * Returns the id of /cue/bank, /scene/bank or /transition/bank.
+     */
+    public int bankSnapshotId(int bank) {
+        return cueAmountId + 1 + bank;
+    }
+
+    public int batchDoneId() {
+        return cueAmountId + 1 + NAME_BANK_COUNT;
+    }
+
+    public int archiveProgressId() {
+        return batchDoneId() + 1;
+    }
+
+    public int sceneAmountId() {
+        return archiveProgressId() + 1;
+    }
+
+    /**
+     * Whether the address carries an int, every other single value address carries a string.
+     */
+    public boolean carriesInt(int id) {
+        return id == cueAmountId || id == sceneAmountId() || id == batchDoneId();
+    }
+
+    public int size() {
+        return addresses.length;
+    }
+
+    public String getAddress(int id) {
+        return addresses[id];
+    }
+
+    public byte[] getEncodedAddress(int id) {
+        return encodedAddresses[id];
+    }
+}
@@ -0,0 +1,150 @@
+package com.systemexklusiv.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands commands from the OSC receive threads (UDP and one reader per TCP connection) to the host thread,
+ * which is the only thread allowed to touch the Bitwig API. Receivers only post() and never wait,
+ * so a slow command no longer holds up packet reception; the host thread runs them in drain().
+ *
+ * A lock-free multi-producer/single-consumer linked queue: producers swap themselves in as the last node
+ * and then link the previous one to it, the consumer follows the links from a stub node.
+ * Policy is drop-newest like the send queues: beyond MAX_PENDING commands post() refuses and counts a drop.
+ */
+public class OSCCommandQueue {
+
+    private static final int MAX_PENDING = 1024;
+
+    // Producers only touch last, the consumer only touches first
+    private final AtomicReference<Node> last;
+    private Node first;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong droppedCommands = new AtomicLong();
+    // Set by the first post() after a drain, so the host is only asked once to come and drain
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    // Queue wait per command label, only touched by the host thread
+    private final Map<String, WaitStats> waitStats = new LinkedHashMap<>();
+
+    public OSCCommandQueue() {
+        Node stub = new Node(null, null, 0);
+        this.first = stub;
+        this.last = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Queues a command from any thread. Returns true if the host has to be asked to drain the queue,
+     * false if that is already pending or the command was dropped.
+     */
+    public boolean post(String label, Runnable command) {
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            droppedCommands.incrementAndGet();
+            return false;
+        }
+
+        Node node = new Node(label, command, System.nanoTime());
+        Node previous = last.getAndSet(node);
+        previous.next = node;  // Until this write the consumer sees the queue end at previous
+
+        return drainRequested.compareAndSet(false, true);
+    }
+
+    /**
+     * Runs every queued command on the calling thread, which must be the host thread, and records how long
+     * each one waited. Returns the number of commands run. A command that throws does not stop the others,
+     * it is expected to report its own errors.
+     */
+    public int drain() {
+        // Cleared first, so a command posted while draining asks for another drain
+        drainRequested.set(false);
+
+        int count = 0;
+        Node next;
+        while ((next = first.next) != null) {
+            first = next;
+            Runnable command = next.command;
+            next.command = null;
+            pending.decrementAndGet();
+
+            WaitStats stats = waitStats.get(next.label);
+            if (stats == null) {
+                stats = new WaitStats();
+                waitStats.put(next.label, stats);
+            }
+            stats.record(System.nanoTime() - next.enqueuedNanos);
+
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                // Commands report their own errors, keep draining
+            }
+            count++;
+        }
+        return count;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getDroppedCommands() {
+        return droppedCommands.get();
+    }
+
+    /**
+     * Queue wait per command, call from the host thread.
+     */
+    public String describe() {
+        if (waitStats.isEmpty() && droppedCommands.get() == 0) {
+            return "no commands";
+        }
+
+        StringBuilder description = new StringBuilder("pending " + getPending() + ", dropped " + getDroppedCommands());
+        for (Map.Entry<String, WaitStats> entry : waitStats.entrySet()) {
+            WaitStats stats = entry.getValue();
+            description.append("\n  ").append(entry.getKey()).append(": ").append(stats.count)
+                .append(" run, wait avg ").append(toMillis(stats.totalNanos / stats.count))
+                .append(" ms, max ").append(toMillis(stats.maxNanos)).append(" ms");
+        }
+        return description.toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.2f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static final class Node {
+
+        private final String label;
+        private final long enqueuedNanos;
+        private Runnable command;
+        private volatile Node next;
+
+        Node(String label, Runnable command, long enqueuedNanos) {
+            this.label = label;
+            this.command = command;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private static final class WaitStats {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void record(long waitNanos) {
+            count++;
+            totalNanos += waitNanos;
+            maxNanos = Math.max(maxNanos, waitNanos);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.systemexklusiv.services;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Plain OSC over UDP, one datagram per packet.
+ */
+public class OSCDatagramTransport implements OSCPacketTransport {
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress target;
+
+    public OSCDatagramTransport(InetSocketAddress target) throws IOException {
+        this.channel = DatagramChannel.open();
+        this.target = target;
+    }
+
+    @Override
+    public void write(ByteBuffer packet) throws IOException {
+        channel.send(packet, target);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public boolean takeNewConnection() {
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "UDP";
+    }
+}
@@ -0,0 +1,190 @@
+package com.systemexklusiv.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal OSC 1.0 encoder writing straight into a caller owned ByteBuffer.
+ * Strings are encoded as UTF-8 char by char, so encoding a message does not allocate.
+ */
+public final class OSCEncoder {
+
+    // "#bundle\0" + 8 byte timetag
+    public static final int BUNDLE_HEADER_SIZE = 16;
+    public static final int BUNDLE_ELEMENT_SIZE_PREFIX = 4;
+
+    private static final byte[] BUNDLE_TAG = { '#', 'b', 'u', 'n', 'd', 'l', 'e', 0 };
+    private static final long TIMETAG_IMMEDIATELY = 1L;
+    private static final byte[] STRING_TYPE_TAG = { ',', 's', 0, 0 };
+    private static final byte[] INT_TYPE_TAG = { ',', 'i', 0, 0 };
+    // First slot, slot count, presence bitmap, packed names
+    private static final byte[] NAME_BANK_TYPE_TAG = { ',', 'i', 'i', 'b', 'b', 0, 0, 0 };
+
+    private OSCEncoder() {
+    }
+
+    /**
+     * Null terminated and zero padded to a multiple of four, ready to be copied into a packet.
+     */
+    public static byte[] encodeAddress(String address) {
+        byte[] raw = address.getBytes(StandardCharsets.US_ASCII);
+        byte[] padded = new byte[pad(raw.length + 1)];
+        System.arraycopy(raw, 0, padded, 0, raw.length);
+        return padded;
+    }
+
+    public static int stringMessageSize(byte[] encodedAddress, String argument) {
+        return encodedAddress.length + STRING_TYPE_TAG.length + pad(utf8Length(argument) + 1);
+    }
+
+    public static int intMessageSize(byte[] encodedAddress) {
+        return encodedAddress.length + INT_TYPE_TAG.length + 4;
+    }
+
+    /**
+     * Bytes a name takes up in the packed blob of a name bank message, 0 for an empty slot.
+     */
+    public static int packedNameLength(String name) {
+        return name == null || name.isEmpty() ? 0 : utf8Length(name) + 1;
+    }
+
+    /**
+     * @param namesLength sum of packedNameLength() over the slots in the message
+     */
+    public static int nameBankMessageSize(byte[] encodedAddress, int slotCount, int namesLength) {
+        return encodedAddress.length + NAME_BANK_TYPE_TAG.length + 8
+            + 4 + pad((slotCount + 7) / 8)
+            + 4 + pad(namesLength);
+    }
+
+    public static void writeBundleHeader(ByteBuffer buffer) {
+        buffer.put(BUNDLE_TAG);
+        buffer.putLong(TIMETAG_IMMEDIATELY);
+    }
+
+    public static void writeStringMessage(ByteBuffer buffer, byte[] encodedAddress, String argument) {
+        buffer.put(encodedAddress);
+        buffer.put(STRING_TYPE_TAG);
+        writeString(buffer, argument);
+    }
+
+    public static void writeIntMessage(ByteBuffer buffer, byte[] encodedAddress, int argument) {
+        buffer.put(encodedAddress);
+        buffer.put(INT_TYPE_TAG);
+        buffer.putInt(argument);
+    }
+
+    /**
+     * Writes names[first] to names[first + count - 1] as one message: the first slot, the slot count,
+     * a blob with one bit per slot (LSB first) set for every non-empty name, and a blob holding those
+     * names in slot order, each UTF-8 encoded and null terminated. See OSCNameBankDecoder.
+     */
+    public static void writeNameBankMessage(ByteBuffer buffer, byte[] encodedAddress, String[] names, int first, int count) {
+        buffer.put(encodedAddress);
+        buffer.put(NAME_BANK_TYPE_TAG);
+        buffer.putInt(first);
+        buffer.putInt(count);
+
+        int bitmapLength = (count + 7) / 8;
+        buffer.putInt(bitmapLength);
+        for (int byteIndex = 0; byteIndex < bitmapLength; byteIndex++) {
+            int bits = 0;
+            for (int bit = 0; bit < 8; bit++) {
+                int slot = byteIndex * 8 + bit;
+                if (slot < count && packedNameLength(names[first + slot]) > 0) {
+                    bits |= 1 << bit;
+                }
+            }
+            buffer.put((byte) bits);
+        }
+        writePadding(buffer, bitmapLength);
+
+        int namesLength = 0;
+        for (int slot = first; slot < first + count; slot++) {
+            namesLength += packedNameLength(names[slot]);
+        }
+        buffer.putInt(namesLength);
+        for (int slot = first; slot < first + count; slot++) {
+            if (packedNameLength(names[slot]) > 0) {
+                writeUtf8(buffer, names[slot]);
+                buffer.put((byte) 0);
+            }
+        }
+        writePadding(buffer, namesLength);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        int written = writeUtf8(buffer, value);
+
+        // Terminator plus padding
+        for (int padding = pad(written + 1) - written; padding > 0; padding--) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void writePadding(ByteBuffer buffer, int length) {
+        for (int padding = pad(length) - length; padding > 0; padding--) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    // Returns the number of bytes written
+    private static int writeUtf8(ByteBuffer buffer, String value) {
+        int written = 0;
+        int length = value == null ? 0 : value.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+                written += 1;
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+                written += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                written += 4;
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');  // Unpaired surrogate, same replacement String.getBytes uses
+                written += 1;
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+                written += 3;
+            }
+        }
+        return written;
+    }
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        int length = value == null ? 0 : value.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+}
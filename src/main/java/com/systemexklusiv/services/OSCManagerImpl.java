@@ -2,249 +2,833 @@ package com.systemexklusiv.services;
 
 import com.bitwig.extension.controller.api.ControllerHost;
 
-import com.illposed.osc.OSCMessage;
-import com.illposed.osc.OSCPortIn;
-import com.illposed.osc.OSCPortOut;
-import com.illposed.osc.OSCListener;
-
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.SocketException;
-import java.net.UnknownHostException;
-import java.util.Arrays;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class OSCManagerImpl {
 
     public static final String CUE_TRIGGER_OSC_PATH = "/cue/trigger/";
     public static final String SCENE_SEND_NAME_OSC_PATH = "/scene/name/";
     public static final String SCENE_TRIGGER_OSC_PATH = "/scene/trigger/";
+    public static final String TRANSITION_TRIGGER_OSC_PATH = "/transition/trigger/";
     public static final String CUE_SEND_NAME_OSC_PATH = "/cue/name/";
     public static final String CUE_AMOUNT_PATH = "/cue/amount";
+    public static final String SCENE_AMOUNT_PATH = "/scene/amount";
+    public static final String TRANSITION_SEND_NAME_OSC_PATH = "/transition/name/";
+    public static final String SYNC_FULL_OSC_PATH = "/sync/full";
+    public static final String CLIENT_HELLO_OSC_PATH = "/client/hello";
+    public static final String CUE_PAGE_OSC_PATH = "/cue/page";
+    public static final String CUE_BANK_OSC_PATH = "/cue/bank";
+    public static final String SCENE_BANK_OSC_PATH = "/scene/bank";
+    public static final String TRANSITION_BANK_OSC_PATH = "/transition/bank";
+    public static final String SCENE_PAGE_OSC_PATH = "/scene/page";
+    public static final String BATCH_DONE_OSC_PATH = "/batch/done";
+    public static final String ARCHIVE_PROGRESS_OSC_PATH = "/archive/progress";
+    public static final int NAME_SLOT_COUNT = 128;
+    public static final int DEFAULT_BUNDLE_MTU = 1400;
+    public static final int DEFAULT_BULK_RATE_LIMIT_KBPS = 256;
+    public static final int DEFAULT_TRIGGER_DEBOUNCE_MS = 200;
+    public static final String TRANSPORT_UDP = "UDP";
+    public static final String TRANSPORT_TCP_SLIP = "TCP (SLIP)";
+    public static final String SNAPSHOT_FORMAT_PER_SLOT = "Per Slot";
+    public static final String SNAPSHOT_FORMAT_COMPACT = "Compact Bank";
+    
+    // Largest UDP payload over IPv4
+    private static final int MAX_PACKET_SIZE = 65507;
+    private static final int PRIORITY_QUEUE_CAPACITY = 64;
+    private static final int BULK_QUEUE_CAPACITY = 256;
+    private static final int SEND_RETRY_DELAY_MS = 20;
+    // Recipients of a packet are tracked as a bit mask over the destination list
+    private static final int MAX_DESTINATIONS = 64;
+    private static final String BUNDLE_COMMAND_LABEL = "#bundle";
+    // Bundles tagged further ahead than this are assumed to come from a client with a wrong clock and run at once
+    private static final long MAX_TIMETAG_AHEAD_MS = 10000;
+    
     private ControllerHost host;
-    private OSCPortIn oscReceiver;
-    private OSCPortOut oscSender;
+    private ExtensionLogger log;
+    private OSCReceiver oscReceiver;
+    // Handlers run on the receive threads and only parse, the callbacks run on the host thread in runCommands()
+    private final OSCCommandQueue commandQueue = new OSCCommandQueue();
+    private final OSCTriggerFilter triggerFilter = new OSCTriggerFilter(DEFAULT_TRIGGER_DEBOUNCE_MS);
+    // Holds commands from time tagged bundles until their time, then queues them for the host thread
+    private volatile ScheduledExecutorService commandScheduler;
+    // Only touched by the receive threads, under the receiver's dispatch lock
+    private long scheduledCommandCount = 0;
+    private long lateTimetagCount = 0;
+    private long skewedTimetagCount = 0;
+    // Commands of the bundle being dispatched, queued as one once it is complete. Guarded by the receiver dispatch lock
+    private boolean collectingBundle = false;
+    private final List<Runnable> bundleCommands = new ArrayList<>();
+    // Every destination has its own send queue and sender thread, packets are encoded once and copied to each
+    private final List<OSCSendQueue> destinations = new ArrayList<>();
+    private boolean started = false;
+    private boolean useTcp = false;
+    private volatile boolean compactSnapshots = false;
+    private long bulkRateLimit = DEFAULT_BULK_RATE_LIMIT_KBPS * 1024L;
+    
+    // While a snapshot is being sent, packets only go to this destination and the shadow state is left alone
+    private OSCSendQueue snapshotDestination;
     private OSCCallback callback;
     private String sendHost;
     private int sendPort;
     private int receivePort;
-    private boolean debugMode = false;
+    private final OSCShadowState shadowState = new OSCShadowState(NAME_SLOT_COUNT);
+    private final OSCAddressTable addressTable = new OSCAddressTable(NAME_SLOT_COUNT);
+    
+    // Every outgoing packet is encoded into this buffer, so the steady-state send path does not allocate
+    private final ByteBuffer packetBuffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
     
-    public void initialize(ControllerHost host, String sendHost, int sendPort, int receivePort) {
+    // Batching: while batchDepth > 0 messages are packed into MTU-sized bundles instead of sent one by one
+    private int bundleMtu = DEFAULT_BUNDLE_MTU;
+    private int batchDepth = 0;
+    // Names sent inside a batch opened by beginBatch() are bulk sync and go through the rate limited lane
+    private boolean bulkBatch = false;
+    private int pendingBundleMessages;
+    private long pendingBundleRecipients;
+    private int pendingBundleLane;
+    private final int[] pendingBundleIds;
+    private final String[] pendingBundleStrings;
+    private final int[] pendingBundleInts;
+    private int batchMessageCount;
+    private int batchPacketCount;
+    private int batchByteCount;
+    
+    // Coalescing queue for messages sent outside a batch, keyed by address id (last write wins), drained on host flush
+    private final boolean[] queued = new boolean[addressTable.size()];
+    private final String[] queuedStrings = new String[addressTable.size()];
+    private final int[] queuedInts = new int[addressTable.size()];
+    private final int[] queuedLanes = new int[addressTable.size()];
+    // Twice the table size: during a flush dropped messages are re-queued behind the entries being drained
+    private final int[] queueOrder = new int[2 * addressTable.size()];
+    private int queueLength = 0;
+    private int queuedWriteCount = 0;
+    private long requeuedMessageCount = 0;
+    
+    public OSCManagerImpl() {
+        pendingBundleIds = new int[addressTable.size()];
+        pendingBundleStrings = new String[addressTable.size()];
+        pendingBundleInts = new int[addressTable.size()];
+    }
+    
+    public void initialize(ControllerHost host, ExtensionLogger log, String sendHost, int sendPort, int receivePort) {
         this.host = host;
+        this.log = log;
         this.sendHost = sendHost;
         this.sendPort = sendPort;
         this.receivePort = receivePort;
         
+        // A new connection means a client that has not seen anything yet
+        shadowState.invalidate();
+        
         setupOSCReceiver();
         setupOSCSender();
     }
     
     private void setupOSCReceiver() {
         try {
-            oscReceiver = new OSCPortIn(receivePort);
-            
-            oscReceiver.addListener(CUE_TRIGGER_OSC_PATH+"*", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleCueTrigger(message);
-                }
-            });
-            
-            oscReceiver.addListener(SCENE_TRIGGER_OSC_PATH+"*", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleSceneTrigger(message);
-                }
-            });
-            
-            oscReceiver.addListener("/track/duplicateToNew", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleTrackDuplicateToNew(message);
-                }
-            });
+            oscReceiver = new OSCReceiver(receivePort);
             
-            oscReceiver.addListener("/track/allMonitoringOff", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleAllMonitoringOff(message);
-                }
-            });
+            // "#" segments are parsed by the router and passed in as the index
+            oscReceiver.addRoute(CUE_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, this::handleCueTrigger);
+            oscReceiver.addRoute(SCENE_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, this::handleSceneTrigger);
+            oscReceiver.addRoute(TRANSITION_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, this::handleTransitionTrigger);
+            oscReceiver.addRoute("/track/duplicateToNew", (number, message) -> handleTrackDuplicateToNew(message));
+            oscReceiver.addRoute("/track/allMonitoringOff", (number, message) -> handleAllMonitoringOff(message));
+            oscReceiver.addRoute("/track/allArmOff", (number, message) -> handleAllArmOff(message));
+            oscReceiver.addRoute("/track/makeRecordGroup", (number, message) -> handleMakeRecordGroup(message));
+            oscReceiver.addRoute("/track/sendTransitionNames", (number, message) -> handleSendTransitionNames(message));
+            oscReceiver.addRoute(SYNC_FULL_OSC_PATH, (number, message) -> handleFullResync(message));
+            oscReceiver.addRoute(CLIENT_HELLO_OSC_PATH, (number, message) -> handleClientHello(message));
+            oscReceiver.addRoute(CUE_PAGE_OSC_PATH,
+                (number, message) -> handlePageRequest(message, OSCAddressTable.CUE_NAMES));
+            oscReceiver.addRoute(SCENE_PAGE_OSC_PATH,
+                (number, message) -> handlePageRequest(message, OSCAddressTable.SCENE_NAMES));
             
-            oscReceiver.addListener("/track/allArmOff", new OSCListener() {
+            oscReceiver.setBundleListener(new OSCReceiver.BundleListener() {
                 @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleAllArmOff(message);
+                public void onBundleStart() {
+                    collectingBundle = true;
+                    bundleCommands.clear();
                 }
-            });
-            
-            oscReceiver.addListener("/track/makeRecordGroup", new OSCListener() {
+                
                 @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleMakeRecordGroup(message);
+                public void onBundleEnd(boolean complete) {
+                    collectingBundle = false;
+                    postBundle(complete);
                 }
             });
             
-            oscReceiver.addListener("/track/sendTransitionNames", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleSendTransitionNames(message);
+            oscReceiver.setFallback((number, message) -> {
+                if (log.isDebugEnabled()) {
+                    log.debug("No handler for OSC address " + message.getAddress());
                 }
             });
             
-            oscReceiver.addListener("/transition/trigger/*", new OSCListener() {
-                @Override
-                public void acceptMessage(java.util.Date time, OSCMessage message) {
-                    handleTransitionTrigger(message);
-                }
-            });
-            
-        } catch (SocketException e) {
-            host.errorln("Failed to create OSC receiver on port " + receivePort + ": " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Failed to create OSC receiver on port " + receivePort + ": " + e.getMessage());
         }
     }
     
     private void setupOSCSender() {
+        addDestination(sendHost, sendPort);
+    }
+    
+    /**
+     * Adds another client that receives every outgoing message. Returns false if it could not be set up.
+     */
+    public synchronized boolean addDestination(String destinationHost, int destinationPort) {
         try {
-            InetAddress address = InetAddress.getByName(sendHost);
-            oscSender = new OSCPortOut(address, sendPort);
-            
-        } catch (SocketException | UnknownHostException e) {
-            host.errorln("Failed to create OSC sender to " + sendHost + ":" + sendPort + ": " + e.getMessage());
+            InetSocketAddress target = new InetSocketAddress(InetAddress.getByName(destinationHost), destinationPort);
+            return findOrAddDestination(target) != null;
+        } catch (IOException e) {
+            log.error("Failed to create OSC sender to " + destinationHost + ":" + destinationPort + ": " + e.getMessage());
+            return false;
         }
     }
     
-    private void handleCueTrigger(OSCMessage message) {
+    private OSCSendQueue findDestination(InetSocketAddress target) {
+        for (OSCSendQueue destination : destinations) {
+            if (destination.getTarget().equals(target)) {
+                return destination;
+            }
+        }
+        return null;
+    }
+    
+    private OSCSendQueue findOrAddDestination(InetSocketAddress target) {
+        OSCSendQueue existing = findDestination(target);
+        if (existing != null) {
+            return existing;
+        }
+        
+        if (destinations.size() == MAX_DESTINATIONS) {
+            log.warn("Cannot add OSC destination " + target + ", already sending to " + MAX_DESTINATIONS + " clients");
+            return null;
+        }
+        
+        try {
+            OSCSendQueue destination = new OSCSendQueue(target, createTransport(target),
+                PRIORITY_QUEUE_CAPACITY, BULK_QUEUE_CAPACITY, DEFAULT_BUNDLE_MTU);
+            destination.setBulkRateLimit(bulkRateLimit);
+            destinations.add(destination);
+            if (started) {
+                destination.start();
+                log.info("OSC Sender ready to " + target + " over " + (useTcp ? TRANSPORT_TCP_SLIP : TRANSPORT_UDP));
+            }
+            return destination;
+        } catch (IOException e) {
+            log.error("Failed to create OSC sender to " + target + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private OSCPacketTransport createTransport(InetSocketAddress target) throws IOException {
+        if (!useTcp) {
+            return new OSCDatagramTransport(target);
+        }
+        
+        // Whatever the client sends back on the connection is handled like a UDP packet from that client
+        return new OSCSlipTransport(target, (frame, length, source) -> {
+            OSCReceiver receiver = oscReceiver;
+            if (receiver != null) {
+                receiver.dispatch(frame, length, source);
+            }
+        });
+    }
+    
+    /**
+     * Runs the producer with every message it sends going to the given client only, bypassing the
+     * shadow state so the client gets complete values. The lock is held throughout, so regular
+     * traffic from other threads cannot slip into the snapshot.
+     */
+    public synchronized void sendSnapshot(InetSocketAddress client, Runnable producer) {
+        OSCSendQueue destination = findOrAddDestination(client);
+        if (destination == null) return;
+        
+        snapshotDestination = destination;
+        try {
+            beginBatch();
+            producer.run();
+            endBatch("snapshot for " + client);
+        } finally {
+            snapshotDestination = null;
+        }
+    }
+    
+    /**
+     * Remembers which part of a name bank the client shows, name updates outside it are no longer sent to that client.
+     * Returns false if the client could not be set up.
+     */
+    public synchronized boolean setViewport(InetSocketAddress client, int bank, int offset, int count) {
+        OSCSendQueue destination = findOrAddDestination(client);
+        if (destination == null) return false;
+        
+        destination.setViewport(bank, offset, count);
+        return true;
+    }
+    
+    private void handleCueTrigger(int index, OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            String address = message.getAddress();
-            String indexStr = address.substring(CUE_TRIGGER_OSC_PATH.length());
-            int index = (int) Float.parseFloat(indexStr);  // 0-based from TouchOSC
+            if (!triggerFilter.accept(OSCTriggerFilter.CUE, index, message)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignored cue trigger release or repeat: " + message.getAddress());
+                }
+                return;
+            }
             
-            if (debugMode) {
-                host.println("[DEBUG] Received cue trigger: " + address + " -> triggering cue " + index);
+            if (log.isDebugEnabled()) {
+                log.debug("Received cue trigger: " + message.getAddress() + " -> triggering cue " + index);
             }
             
-            callback.onCueTrigger(index);
+            post(CUE_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, () -> callback.onCueTrigger(index));  // 0-based from the OSC client
             
-        } catch (NumberFormatException e) {
-            host.errorln("Invalid cue trigger format in message: " + message.getAddress() + " - " + e.getMessage());
-        } catch (StringIndexOutOfBoundsException e) {
-            host.errorln("Malformed cue trigger address: " + message.getAddress() + " - " + e.getMessage());
         } catch (Exception e) {
-            host.errorln("Error processing cue trigger message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing cue trigger message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleSceneTrigger(OSCMessage message) {
+    private void handleSceneTrigger(int index, OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            String address = message.getAddress();
-            String indexStr = address.substring(SCENE_TRIGGER_OSC_PATH.length());
-            int index = Integer.parseInt(indexStr);  // 0-based from TouchOSC
+            if (!triggerFilter.accept(OSCTriggerFilter.SCENE, index, message)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignored scene trigger release or repeat: " + message.getAddress());
+                }
+                return;
+            }
             
-            if (debugMode) {
-                host.println("[DEBUG] Received scene trigger: " + address + " -> triggering scene " + index);
+            if (log.isDebugEnabled()) {
+                log.debug("Received scene trigger: " + message.getAddress() + " -> triggering scene " + index);
             }
             
-            callback.onSceneTrigger(index);
+            post(SCENE_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, () -> callback.onSceneTrigger(index));  // 0-based from the OSC client
             
-        } catch (NumberFormatException e) {
-            host.errorln("Invalid scene trigger format in message: " + message.getAddress() + " - " + e.getMessage());
-        } catch (StringIndexOutOfBoundsException e) {
-            host.errorln("Malformed scene trigger address: " + message.getAddress() + " - " + e.getMessage());
         } catch (Exception e) {
-            host.errorln("Error processing scene trigger message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing scene trigger message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    public void sendCueMarkerName(int index, String name) {
-        if (oscSender == null) return;
+    public synchronized void sendCueMarkerName(int index, String name) {
+        if (destinations.isEmpty()) return;
+        if (snapshotDestination == null && !shadowState.updateName(OSCAddressTable.CUE_NAMES, index, name)) return;
         
-        try {
-            String address = CUE_SEND_NAME_OSC_PATH + index;
-
-            OSCMessage message = new OSCMessage(address, Arrays.asList(name));
-            oscSender.send(message);
+        int addressId = addressTable.nameAddressId(OSCAddressTable.CUE_NAMES, index);
+        if (addressId < 0) {
+            log.warn("Cue marker index out of range: " + index);
+            return;
+        }
+        
+        send(addressId, name, 0, laneFor(addressId));
 
-            if (debugMode && name.contains("TEST")) {
-                host.println("[DEBUG] Sent cue marker: " + address + " -> \"" + name + "\"");
-//                host.println("[DEBUG] Sent cue marker: " + address1 + " -> \"" + name + "\"");
-//                host.println("[DEBUG] Sent cue marker: " + address2 + " -> \"" + name + "\"");
-//                host.println("[DEBUG] Sent cue marker: " + address3 + " -> \"" + name + "\"");
-//                host.println("[DEBUG] Sent cue marker: " + address4 + " -> \"" + name + "\"");
-            }
-            
-        } catch (IOException e) {
-            host.errorln("Failed to send cue marker name: " + e.getMessage());
+        if (log.isDebugEnabled() && name.contains("TEST")) {
+            log.debug("Sent cue marker: " + addressTable.getAddress(addressId) + " -> \"" + name + "\"");
         }
     }
     
-    public void sendSceneName(int index, String name) {
-        if (oscSender == null) return;
+    public synchronized void sendSceneName(int index, String name) {
+        if (destinations.isEmpty()) return;
+        if (snapshotDestination == null && !shadowState.updateName(OSCAddressTable.SCENE_NAMES, index, name)) return;
         
+        int addressId = addressTable.nameAddressId(OSCAddressTable.SCENE_NAMES, index);
+        if (addressId < 0) {
+            log.warn("Scene index out of range: " + index);
+            return;
+        }
+        
+        send(addressId, name, 0, laneFor(addressId));
+        
+        if (log.isDebugEnabled() && name.contains("TEST")) {
+            log.debug("Sent " + SCENE_SEND_NAME_OSC_PATH + ": " + addressTable.getAddress(addressId) + " -> \"" + name + "\"");
+        }
+    }
+    
+    /**
+     * Tells the client how long the commands of its last bundle took to run, in microseconds. Only
+     * goes to a client that is already a destination, a bundle from anywhere else (e.g. an ephemeral
+     * source port) must not turn its sender into a permanent broadcast target.
+     */
+    public synchronized void sendBatchDone(InetSocketAddress client, int micros) {
+        OSCSendQueue destination = findDestination(client);
+        if (destination == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("No " + addressTable.getAddress(addressTable.batchDoneId()) + " for unregistered sender " + client);
+            }
+            return;
+        }
+        
+        snapshotDestination = destination;
         try {
-            String address = SCENE_SEND_NAME_OSC_PATH + index;
-            OSCMessage message = new OSCMessage(address, Arrays.asList(name));
-            oscSender.send(message);
+            openBatch(false);
+            send(addressTable.batchDoneId(), null, micros, OSCSendQueue.PRIORITY_LANE);
+            finishBatch();
+        } finally {
+            snapshotDestination = null;
+        }
+    }
+    
+    /**
+     * Status of the running <REC> archive for every client, e.g. "Duplicating 2/6" or "Archived 6/6".
+     */
+    public synchronized void sendArchiveProgress(String status) {
+        if (destinations.isEmpty()) return;
+        
+        int addressId = addressTable.archiveProgressId();
+        send(addressId, status, 0, laneFor(addressId));
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Sent archive progress: " + addressTable.getAddress(addressId) + " -> \"" + status + "\"");
+        }
+    }
+    
+    public synchronized void sendCueMarkerCount(int count) {
+        if (destinations.isEmpty()) return;
+        if (snapshotDestination == null && !shadowState.updateCueCount(count)) return;
+        
+        int addressId = addressTable.cueAmountId();
+        send(addressId, null, count, laneFor(addressId));
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Sent cue marker count: " + addressTable.getAddress(addressId) + " -> " + count);
+        }
+    }
+    
+    public synchronized void sendSceneCount(int count) {
+        if (destinations.isEmpty()) return;
+        if (snapshotDestination == null && !shadowState.updateSceneCount(count)) return;
+        
+        int addressId = addressTable.sceneAmountId();
+        send(addressId, null, count, laneFor(addressId));
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Sent scene count: " + addressTable.getAddress(addressId) + " -> " + count);
+        }
+    }
+    
+    /**
+     * Returns false when nothing was queued: no client, out of range, or the client already shows name.
+     */
+    public synchronized boolean sendTransitionName(int index, String name) {
+        if (destinations.isEmpty()) return false;
+        if (snapshotDestination == null && !shadowState.updateName(OSCAddressTable.TRANSITION_NAMES, index, name)) return false;
+        
+        int addressId = addressTable.nameAddressId(OSCAddressTable.TRANSITION_NAMES, index); // 0-based indexing
+        if (addressId < 0) {
+            log.warn("Transition slot index out of range: " + index);
+            return false;
+        }
+        
+        send(addressId, name, 0, laneFor(addressId));
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Sent transition name: " + addressTable.getAddress(addressId) + " -> \"" + name + "\"");
+        }
+        return true;
+    }
+    
+    /**
+     * Sends names[first] to names[first + count - 1] of a whole bank as compact /cue/bank style messages,
+     * split into as many as needed to stay within the bundle MTU. Per-slot updates still queued for these
+     * slots are superseded. If nothing changed since the last send the call does nothing.
+     */
+    public synchronized void sendNameBank(int bank, String[] names, int first, int count) {
+        if (destinations.isEmpty()) return;
+        
+        int start = Math.max(first, 0);
+        int end = (int) Math.min((long) start + count, Math.min(names.length, NAME_SLOT_COUNT));
+        boolean changed = snapshotDestination != null;
+        if (snapshotDestination == null) {
+            for (int i = start; i < end; i++) {
+                changed |= shadowState.updateName(bank, i, names[i]);
+                int slotId = addressTable.nameAddressId(bank, i);
+                if (queued[slotId]) {
+                    queued[slotId] = false;
+                    queuedStrings[slotId] = null;
+                }
+            }
+        }
+        if (!changed || start >= end) return;
+        
+        int addressId = addressTable.bankSnapshotId(bank);
+        byte[] address = addressTable.getEncodedAddress(addressId);
+        long recipients = recipientsFor(addressId);
+        if (recipients == 0) return;
+        
+        openBatch(true);
+        flushPendingBundle();  // Keeps earlier messages ahead of the bank
+        int chunkStart = start;
+        while (chunkStart < end) {
+            // Grow the chunk slot by slot while it fits, but always take at least one slot
+            int chunkEnd = chunkStart;
+            int namesLength = 0;
+            while (chunkEnd < end) {
+                int grown = namesLength + OSCEncoder.packedNameLength(names[chunkEnd]);
+                if (chunkEnd > chunkStart && OSCEncoder.nameBankMessageSize(address, chunkEnd + 1 - chunkStart, grown) > bundleMtu) {
+                    break;
+                }
+                namesLength = grown;
+                chunkEnd++;
+            }
             
-            if (debugMode && name.contains("TEST")) {
-                host.println("[DEBUG] Sent " + SCENE_SEND_NAME_OSC_PATH + ": " + address + " -> \"" + name + "\"");
+            if (OSCEncoder.nameBankMessageSize(address, chunkEnd - chunkStart, namesLength) > packetBuffer.capacity()) {
+                log.error("OSC name for " + addressTable.getAddress(addressTable.nameAddressId(bank, chunkStart))
+                    + " exceeds the maximum packet size");
+                chunkStart = chunkEnd;
+                continue;
             }
             
-        } catch (IOException e) {
-            host.errorln("Failed to send " + SCENE_SEND_NAME_OSC_PATH + " name: " + e.getMessage());
+            packetBuffer.clear();
+            OSCEncoder.writeNameBankMessage(packetBuffer, address, names, chunkStart, chunkEnd - chunkStart);
+            packetBuffer.flip();
+            batchMessageCount++;
+            
+            if (!sendPacket(recipients, OSCSendQueue.BULK_LANE) && snapshotDestination == null) {
+                // A refused chunk falls back to per-slot messages on the next flush
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    requeue(addressTable.nameAddressId(bank, i), names[i] == null ? "" : names[i], 0, OSCSendQueue.BULK_LANE);
+                }
+            }
+            chunkStart = chunkEnd;
         }
+        endBatch(OSCAddressTable.NAME_BANK_LABELS[bank] + " bank");
+    }
+    
+    /**
+     * Starts packing outgoing messages into OSC bundles of at most bundleMtu bytes.
+     * Calls can be nested, the bundles are sent when the outermost endBatch() is reached.
+     */
+    public synchronized void beginBatch() {
+        openBatch(true);
     }
     
-    public void sendCueMarkerCount(int count) {
-        if (oscSender == null) return;
+    private void openBatch(boolean bulk) {
+        if (batchDepth++ > 0) return;
         
-        try {
-            String address = CUE_AMOUNT_PATH;
-            OSCMessage message = new OSCMessage(address, Arrays.asList(count));
-            oscSender.send(message);
+        bulkBatch = bulk;
+        pendingBundleMessages = 0;
+        batchMessageCount = 0;
+        batchPacketCount = 0;
+        batchByteCount = 0;
+    }
+    
+    public synchronized void endBatch(String label) {
+        if (finishBatch() && batchMessageCount > 0 && log.isDebugEnabled()) {
+            log.debug("OSC batch \"" + label + "\": " + batchMessageCount + " messages in " + batchPacketCount
+                + " packets, " + batchByteCount + " bytes (MTU " + bundleMtu + ")");
+        }
+    }
+    
+    // Returns true when the outermost batch was closed and its bundles were handed to the send queue
+    private boolean finishBatch() {
+        if (batchDepth == 0) return false;
+        if (batchDepth > 1) {
+            batchDepth--;
+            return false;
+        }
+        
+        flushPendingBundle();
+        batchDepth = 0;
+        bulkBatch = false;
+        return true;
+    }
+    
+    /**
+     * Runs the callbacks for the OSC commands received since the last call. Must be called on the host thread,
+     * before flushOutbound() so their replies leave in the same flush.
+     */
+    public void runCommands() {
+        int count = commandQueue.drain();
+        if (count > 0 && log.isDebugEnabled()) {
+            log.debug("Ran " + count + " OSC command(s)");
+        }
+    }
+    
+    /**
+     * Sends everything that was queued since the last flush as one batch.
+     * Called once per host flush, so a burst of observer callbacks ends up as one message per changed address.
+     */
+    public synchronized void flushOutbound() {
+        snapshotNewConnections();
+        if (queueLength == 0) return;
+        
+        int drained = queueLength;
+        int addresses = 0;
+        int writes = queuedWriteCount;
+        queuedWriteCount = 0;
+        
+        openBatch(false);
+        for (int i = 0; i < drained; i++) {
+            int addressId = queueOrder[i];
+            if (!queued[addressId]) continue;  // Superseded by a batched send
             
-            if (debugMode) {
-                host.println("[DEBUG] Sent cue marker count: " + address + " -> " + count);
+            // send() clears the queue entry for this address, packets the send queue refuses are re-queued
+            send(addressId, queuedStrings[addressId], queuedInts[addressId], queuedLanes[addressId]);
+            addresses++;
+        }
+        boolean finished = finishBatch();
+        
+        // Keep only what was re-queued behind the drained entries
+        System.arraycopy(queueOrder, drained, queueOrder, 0, queueLength - drained);
+        queueLength -= drained;
+        if (queueLength > 0) {
+            // Give the sender thread a moment to make room before retrying
+            host.scheduleTask(host::requestFlush, SEND_RETRY_DELAY_MS);
+        }
+        
+        if (finished && log.isDebugEnabled()) {
+            log.debug("Flushed " + addresses + " addresses (" + writes + " queued writes) in "
+                + batchPacketCount + " packets, " + batchByteCount + " bytes to " + destinations.size() + " destination(s), "
+                + "lanes waiting: priority " + getLaneDepth(OSCSendQueue.PRIORITY_LANE)
+                + ", bulk " + getLaneDepth(OSCSendQueue.BULK_LANE) + " packets");
+        }
+    }
+    
+    // A client behind a new stream connection starts from scratch and gets a snapshot, like after /client/hello
+    private void snapshotNewConnections() {
+        for (int i = 0; i < destinations.size(); i++) {
+            OSCSendQueue destination = destinations.get(i);
+            if (destination.takeNewConnection() && callback != null) {
+                log.info("OSC connection to " + destination.getTarget() + " established, sending snapshot");
+                callback.onClientHello(destination.getTarget());
             }
-            
-        } catch (IOException e) {
-            host.errorln("Failed to send cue marker count: " + e.getMessage());
         }
     }
     
-    public void sendTransitionName(int index, String name) {
-        if (oscSender == null) return;
+    private void clearQueue() {
+        for (int i = 0; i < queueLength; i++) {
+            int addressId = queueOrder[i];
+            queued[addressId] = false;
+            queuedStrings[addressId] = null;
+        }
+        queueLength = 0;
+        queuedWriteCount = 0;
+    }
+    
+    // Names sent inside a batch are bulk sync, everything else (live changes, counts, replies) is state feedback
+    private int laneFor(int addressId) {
+        return bulkBatch && addressTable.bankOf(addressId) >= 0 ? OSCSendQueue.BULK_LANE : OSCSendQueue.PRIORITY_LANE;
+    }
+    
+    // See OSCAddressTable.carriesInt() for which addresses take the int argument
+    private synchronized void send(int addressId, String stringArgument, int intArgument, int lane) {
+        if (batchDepth == 0 && snapshotDestination == null) {
+            queue(addressId, stringArgument, intArgument, lane);
+            return;
+        }
         
-        try {
-            String address = "/transition/name/" + index; // 0-based indexing
-            OSCMessage message = new OSCMessage(address, Arrays.asList(name));
-            oscSender.send(message);
+        // A batched send supersedes whatever is still queued for the same address, unless it only goes to one client
+        if (queued[addressId] && snapshotDestination == null) {
+            queued[addressId] = false;
+            queuedStrings[addressId] = null;
+        }
+        
+        long recipients = recipientsFor(addressId);
+        if (recipients == 0) return;  // Outside every client's viewport
+        batchMessageCount++;
+        
+        byte[] address = addressTable.getEncodedAddress(addressId);
+        boolean isInt = addressTable.carriesInt(addressId);
+        int messageSize = isInt
+            ? OSCEncoder.intMessageSize(address)
+            : OSCEncoder.stringMessageSize(address, stringArgument);
+        int elementSize = OSCEncoder.BUNDLE_ELEMENT_SIZE_PREFIX + messageSize;
+        
+        // A message that does not fit into an empty bundle goes out on its own
+        if (OSCEncoder.BUNDLE_HEADER_SIZE + elementSize > bundleMtu) {
+            flushPendingBundle();
+            if (messageSize > packetBuffer.capacity()) {
+                log.error("OSC message for " + addressTable.getAddress(addressId) + " exceeds the maximum packet size");
+                return;
+            }
             
-            if (debugMode) {
-                host.println("[DEBUG] Sent transition name: " + address + " -> \"" + name + "\"");
+            packetBuffer.clear();
+            writeMessage(address, isInt, stringArgument, intArgument);
+            packetBuffer.flip();
+            if (!sendPacket(recipients, lane) && snapshotDestination == null) {
+                requeue(addressId, stringArgument, intArgument, lane);
+            }
+            return;
+        }
+        
+        // A bundle only holds messages for the same set of clients and the same lane, so either changing starts a new one
+        if (pendingBundleMessages > 0
+                && (packetBuffer.position() + elementSize > bundleMtu || pendingBundleMessages == pendingBundleIds.length
+                    || recipients != pendingBundleRecipients || lane != pendingBundleLane)) {
+            flushPendingBundle();
+        }
+        
+        if (pendingBundleMessages == 0) {
+            packetBuffer.clear();
+            OSCEncoder.writeBundleHeader(packetBuffer);
+            pendingBundleRecipients = recipients;
+            pendingBundleLane = lane;
+        }
+        
+        packetBuffer.putInt(messageSize);
+        writeMessage(address, isInt, stringArgument, intArgument);
+        
+        pendingBundleIds[pendingBundleMessages] = addressId;
+        pendingBundleStrings[pendingBundleMessages] = stringArgument;
+        pendingBundleInts[pendingBundleMessages] = intArgument;
+        pendingBundleMessages++;
+    }
+    
+    private void queue(int addressId, String stringArgument, int intArgument, int lane) {
+        if (queueLength == 0) {
+            host.requestFlush();
+        }
+        if (!queued[addressId]) {
+            queued[addressId] = true;
+            queueOrder[queueLength++] = addressId;
+        }
+        queuedStrings[addressId] = stringArgument;
+        queuedInts[addressId] = intArgument;
+        queuedLanes[addressId] = lane;
+        queuedWriteCount++;
+    }
+    
+    // The send queue refused the packet, keep the value so the next flush tries again
+    private void requeue(int addressId, String stringArgument, int intArgument, int lane) {
+        queue(addressId, stringArgument, intArgument, lane);
+        requeuedMessageCount++;
+    }
+    
+    private void writeMessage(byte[] address, boolean isInt, String stringArgument, int intArgument) {
+        if (isInt) {
+            OSCEncoder.writeIntMessage(packetBuffer, address, intArgument);
+        } else {
+            OSCEncoder.writeStringMessage(packetBuffer, address, stringArgument);
+        }
+    }
+    
+    private void flushPendingBundle() {
+        if (pendingBundleMessages == 0) return;
+        
+        int messages = pendingBundleMessages;
+        pendingBundleMessages = 0;
+        
+        packetBuffer.flip();
+        if (messages == 1) {
+            // No point wrapping a single message, send it bare
+            packetBuffer.position(OSCEncoder.BUNDLE_HEADER_SIZE + OSCEncoder.BUNDLE_ELEMENT_SIZE_PREFIX);
+        }
+        
+        boolean accepted = sendPacket(pendingBundleRecipients, pendingBundleLane);
+        for (int i = 0; i < messages; i++) {
+            // A refused snapshot packet is not re-queued, that would broadcast it to everyone
+            if (!accepted && snapshotDestination == null) {
+                requeue(pendingBundleIds[i], pendingBundleStrings[i], pendingBundleInts[i], pendingBundleLane);
             }
+            pendingBundleStrings[i] = null;
+        }
+    }
+    
+    /**
+     * Returns the bit mask of destinations the message goes to: only the snapshot client while a snapshot
+     * is being sent, and for names only the clients whose viewport contains the slot.
+     */
+    private long recipientsFor(int addressId) {
+        int bank = addressTable.bankOf(addressId);
+        int index = addressTable.indexOf(addressId);
+        long recipients = 0;
+        
+        for (int i = 0; i < destinations.size(); i++) {
+            OSCSendQueue destination = destinations.get(i);
+            if (snapshotDestination != null && destination != snapshotDestination) continue;
+            if (bank < 0 || destination.acceptsName(bank, index)) {
+                recipients |= 1L << i;
+            }
+        }
+        return recipients;
+    }
+    
+    /**
+     * Copies the encoded packet into the given lane of every destination in recipients.
+     * Returns false if any destination's queue was full and dropped it, names are idempotent
+     * so re-sending to the destinations that did accept it is harmless.
+     */
+    private boolean sendPacket(long recipients, int lane) {
+        int start = packetBuffer.position();
+        int size = packetBuffer.remaining();
+        boolean acceptedByAll = true;
+        
+        for (int i = 0; i < destinations.size(); i++) {
+            if ((recipients & (1L << i)) == 0) continue;
+            OSCSendQueue destination = destinations.get(i);
+            packetBuffer.position(start);
             
-        } catch (IOException e) {
-            host.errorln("Failed to send transition name: " + e.getMessage());
+            if (!destination.offer(packetBuffer, lane)) {
+                acceptedByAll = false;
+                if (log.isDebugEnabled()) {
+                    log.debug("OSC " + OSCSendQueue.LANE_LABELS[lane] + " lane for " + destination.getTarget()
+                        + " full, dropped packet of " + size + " bytes (" + destination.getDroppedPackets(lane) + " dropped so far)");
+                }
+            }
+        }
+        
+        if (batchDepth > 0) {
+            batchPacketCount++;
+            batchByteCount += size;
         }
+        return acceptedByAll;
+    }
+    
+    public synchronized String getSendQueueStats() {
+        if (destinations.isEmpty()) {
+            return "no destinations";
+        }
+        
+        StringBuilder stats = new StringBuilder("re-queued messages " + requeuedMessageCount);
+        for (OSCSendQueue destination : destinations) {
+            stats.append("\n  ").append(destination.describe());
+        }
+        return stats.toString();
+    }
+    
+    /**
+     * Number of packets waiting in the given lane, summed over all destinations.
+     */
+    public synchronized int getLaneDepth(int lane) {
+        int depth = 0;
+        for (OSCSendQueue destination : destinations) {
+            depth += destination.getDepth(lane);
+        }
+        return depth;
     }
     
     public void start() {
         if (oscReceiver != null) {
             try {
                 oscReceiver.startListening();
-                host.println("OSC Receiver started on port " + receivePort);
+                log.info("OSC Receiver started on port " + receivePort);
             } catch (Exception e) {
-                host.errorln("Failed to start OSC receiver: " + e.getMessage());
+                log.error("Failed to start OSC receiver: " + e.getMessage());
             }
         }
         
-        if (oscSender != null) {
-            host.println("OSC Sender ready to " + sendHost + ":" + sendPort);
+        if (commandScheduler == null) {
+            commandScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "OSC Command Scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        
+        synchronized (this) {
+            started = true;
+            for (OSCSendQueue destination : destinations) {
+                destination.start();
+                log.info("OSC Sender ready to " + destination.getTarget() + " over " + (useTcp ? TRANSPORT_TCP_SLIP : TRANSPORT_UDP));
+            }
         }
     }
     
@@ -252,123 +836,350 @@ public class OSCManagerImpl {
         if (oscReceiver != null) {
             try {
                 oscReceiver.stopListening();
+                log.info("OSC Receiver stats - " + oscReceiver.describe());
+                log.info("OSC Trigger stats - " + triggerFilter.describe());
                 oscReceiver.close();
-                host.println("OSC Receiver stopped");
+                log.info("OSC Receiver stopped");
             } catch (Exception e) {
-                host.errorln("Error stopping OSC receiver: " + e.getMessage());
+                log.error("Error stopping OSC receiver: " + e.getMessage());
             }
         }
         
-        if (oscSender != null) {
-            try {
-                oscSender.close();
-                host.println("OSC Sender closed");
-            } catch (Exception e) {
-                host.errorln("Error closing OSC sender: " + e.getMessage());
+        synchronized (this) {
+            clearQueue();
+            started = false;
+            
+            if (!destinations.isEmpty()) {
+                for (OSCSendQueue destination : destinations) {
+                    destination.close();
+                }
+                log.info("OSC Sender stats - " + getSendQueueStats());
+                destinations.clear();
+                log.info("OSC Sender closed");
             }
         }
+        
+        // Commands still waiting for their time tag belong to the session that is ending
+        ScheduledExecutorService scheduler = commandScheduler;
+        commandScheduler = null;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        
+        log.info("OSC Command stats - time tagged " + scheduledCommandCount + " (late " + lateTimetagCount
+            + ", too far ahead " + skewedTimetagCount + "), " + commandQueue.describe());
+    }
+    
+    /**
+     * Forgets what the client has been sent, so the following broadcasts send every value again.
+     */
+    public void invalidateShadowState() {
+        shadowState.invalidate();
     }
     
     public void setOSCCallback(OSCCallback callback) {
         this.callback = callback;
     }
     
-    public void setDebugMode(boolean debug) {
-        this.debugMode = debug;
+    /**
+     * Ignores a repeated press of the same trigger within the given window, 0 fires every press.
+     */
+    public void setTriggerDebounce(long millis) {
+        triggerFilter.setWindow(millis);
     }
     
-    private void handleTrackDuplicateToNew(OSCMessage message) {
+    /**
+     * Paces name syncs to every client at the given rate, 0 sends them as fast as possible.
+     */
+    public synchronized void setBulkRateLimit(long bytesPerSecond) {
+        this.bulkRateLimit = Math.max(bytesPerSecond, 0);
+        for (OSCSendQueue destination : destinations) {
+            destination.setBulkRateLimit(bulkRateLimit);
+        }
+    }
+    
+    /**
+     * Selects TRANSPORT_UDP or TRANSPORT_TCP_SLIP for every destination, takes effect with the next initialize().
+     */
+    public synchronized void setTransport(String transport) {
+        this.useTcp = TRANSPORT_TCP_SLIP.equals(transport);
+    }
+    
+    /**
+     * Selects SNAPSHOT_FORMAT_PER_SLOT or SNAPSHOT_FORMAT_COMPACT for full bank broadcasts.
+     */
+    public void setSnapshotFormat(String format) {
+        this.compactSnapshots = SNAPSHOT_FORMAT_COMPACT.equals(format);
+    }
+    
+    public boolean isCompactSnapshots() {
+        return compactSnapshots;
+    }
+    
+    public synchronized void setBundleMtu(int mtu) {
+        this.bundleMtu = mtu > OSCEncoder.BUNDLE_HEADER_SIZE ? Math.min(mtu, MAX_PACKET_SIZE) : DEFAULT_BUNDLE_MTU;
+    }
+    
+    private void handleTrackDuplicateToNew(OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            if (debugMode) {
-                host.println("[DEBUG] Received track duplicate to new request");
+            if (log.isDebugEnabled()) {
+                log.debug("Received track duplicate to new request");
             }
             
-            callback.onTrackDuplicateToNew();
+            post("/track/duplicateToNew", () -> callback.onTrackDuplicateToNew());
         } catch (Exception e) {
-            host.errorln("Error processing track duplicate message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing track duplicate message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleAllMonitoringOff(OSCMessage message) {
+    private void handleAllMonitoringOff(OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            if (debugMode) {
-                host.println("[DEBUG] Received all monitoring off request");
+            if (log.isDebugEnabled()) {
+                log.debug("Received all monitoring off request");
             }
             
-            callback.onAllMonitoringOff();
+            post("/track/allMonitoringOff", () -> callback.onAllMonitoringOff());
         } catch (Exception e) {
-            host.errorln("Error processing all monitoring off message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing all monitoring off message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleAllArmOff(OSCMessage message) {
+    private void handleAllArmOff(OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            if (debugMode) {
-                host.println("[DEBUG] Received all arm off request");
+            if (log.isDebugEnabled()) {
+                log.debug("Received all arm off request");
             }
             
-            callback.onAllArmOff();
+            post("/track/allArmOff", () -> callback.onAllArmOff());
         } catch (Exception e) {
-            host.errorln("Error processing all arm off message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing all arm off message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleMakeRecordGroup(OSCMessage message) {
+    private void handleMakeRecordGroup(OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            if (debugMode) {
-                host.println("[DEBUG] Received make record group request");
+            if (log.isDebugEnabled()) {
+                log.debug("Received make record group request");
             }
             
-            callback.onMakeRecordGroup();
+            post("/track/makeRecordGroup", () -> callback.onMakeRecordGroup());
         } catch (Exception e) {
-            host.errorln("Error processing make record group message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing make record group message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleSendTransitionNames(OSCMessage message) {
+    private void handleSendTransitionNames(OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            if (debugMode) {
-                host.println("[DEBUG] Received send transition names request");
+            if (log.isDebugEnabled()) {
+                log.debug("Received send transition names request");
             }
             
-            callback.onSendTransitionNames();
+            post("/track/sendTransitionNames", () -> callback.onSendTransitionNames());
         } catch (Exception e) {
-            host.errorln("Error processing send transition names message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing send transition names message: " + message.getAddress() + " - " + e.getMessage());
         }
     }
     
-    private void handleTransitionTrigger(OSCMessage message) {
+    private void handleTransitionTrigger(int index, OSCMessageView message) {
         if (callback == null) return;
         
         try {
-            String address = message.getAddress();
-            // Extract index from "/transition/trigger/X"
-            String indexStr = address.substring("/transition/trigger/".length());
-            int index = Integer.parseInt(indexStr); // 0-based from OSC client
+            if (!triggerFilter.accept(OSCTriggerFilter.TRANSITION, index, message)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Ignored transition trigger release or repeat: " + message.getAddress());
+                }
+                return;
+            }
             
-            if (debugMode) {
-                host.println("[DEBUG] Received transition trigger: " + address + " -> triggering slot " + index);
+            if (log.isDebugEnabled()) {
+                log.debug("Received transition trigger: " + message.getAddress() + " -> triggering slot " + index);
             }
             
-            callback.onTransitionTrigger(index);
+            post(TRANSITION_TRIGGER_OSC_PATH + OSCRouter.NUMBER_SEGMENT, () -> callback.onTransitionTrigger(index));  // 0-based from the OSC client
             
-        } catch (NumberFormatException e) {
-            host.errorln("Invalid transition trigger format in message: " + message.getAddress() + " - " + e.getMessage());
-        } catch (StringIndexOutOfBoundsException e) {
-            host.errorln("Malformed transition trigger address: " + message.getAddress() + " - " + e.getMessage());
         } catch (Exception e) {
-            host.errorln("Error processing transition trigger message: " + message.getAddress() + " - " + e.getMessage());
+            log.error("Error processing transition trigger message: " + message.getAddress() + " - " + e.getMessage());
+        }
+    }
+    
+    private void handleFullResync(OSCMessageView message) {
+        if (callback == null) return;
+        
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Received full resync request");
+            }
+            
+            post(SYNC_FULL_OSC_PATH, () -> callback.onFullResync());
+        } catch (Exception e) {
+            log.error("Error processing full resync message: " + message.getAddress() + " - " + e.getMessage());
+        }
+    }
+    
+    private void handleClientHello(OSCMessageView message) {
+        if (callback == null) return;
+        
+        try {
+            InetSocketAddress client = resolveClient(message, 0);
+            if (client == null) return;
+            
+            log.info("OSC client hello from " + oscReceiver.getCurrentSender() + ", registering " + client);
+            
+            post(CLIENT_HELLO_OSC_PATH, () -> callback.onClientHello(client));
+        } catch (Exception e) {
+            log.error("Error processing client hello message: " + message.getAddress() + " - " + e.getMessage());
+        }
+    }
+    
+    // Expects "offset count [replyPort]", offset is 0-based and a count of 0 shows the whole bank again
+    private void handlePageRequest(OSCMessageView message, int bank) {
+        if (callback == null) return;
+        
+        try {
+            if (message.getArgumentCount() < 2 || !message.isNumber(0) || !message.isNumber(1)) {
+                log.warn("Invalid page request, expected offset and count: " + message.getAddress());
+                return;
+            }
+            
+            int offset = message.getInt(0);
+            int count = message.getInt(1);
+            
+            InetSocketAddress client = resolveClient(message, 2);
+            if (client == null || !setViewport(client, bank, offset, count)) return;
+            
+            if (log.isDebugEnabled()) {
+                log.debug("Received " + message.getAddress() + " " + offset + " " + count + " from " + client);
+            }
+            
+            if (bank == OSCAddressTable.CUE_NAMES) {
+                post(CUE_PAGE_OSC_PATH, () -> callback.onCuePage(client, offset, count));
+            } else {
+                post(SCENE_PAGE_OSC_PATH, () -> callback.onScenePage(client, offset, count));
+            }
+        } catch (Exception e) {
+            log.error("Error processing page request: " + message.getAddress() + " - " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Works out where replies to the sender go. Clients often send from a different port than they listen on,
+     * so the optional argument names the reply port; without it an existing destination on the sender's
+     * host is reused, and only then the sender's own port is taken.
+     */
+    private InetSocketAddress resolveClient(OSCMessageView message, int replyPortArgument) {
+        InetSocketAddress sender = oscReceiver.getCurrentSender();
+        if (sender == null) {
+            log.warn("Could not determine sender of " + message.getAddress());
+            return null;
+        }
+        
+        if (message.isNumber(replyPortArgument)) {
+            return new InetSocketAddress(sender.getAddress(), message.getInt(replyPortArgument));
+        }
+        return replyTarget(sender);
+    }
+    
+    private InetSocketAddress replyTarget(InetSocketAddress sender) {
+        synchronized (this) {
+            for (OSCSendQueue destination : destinations) {
+                if (sender.getAddress().equals(destination.getTarget().getAddress())) {
+                    return destination.getTarget();
+                }
+            }
+        }
+        return sender;
+    }
+    
+    // Called on a receive thread: the command waits for the host thread, and for the time tag of its bundle if it has one
+    private void post(String label, Runnable command) {
+        Runnable guarded = () -> {
+            try {
+                command.run();
+            } catch (Exception e) {
+                log.error("Error running OSC command " + label + " - " + e.getMessage());
+            }
+        };
+        
+        if (collectingBundle) {
+            bundleCommands.add(guarded);
+            return;
+        }
+        
+        long delayMillis = timetagDelay(label);
+        ScheduledExecutorService scheduler = commandScheduler;
+        if (delayMillis > 0 && scheduler != null) {
+            scheduledCommandCount++;
+            scheduler.schedule(() -> enqueue(label, guarded), delayMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        enqueue(label, guarded);
+    }
+    
+    // The commands of a bundle run back to back in one host tick, then the sender is told how long that took
+    private void postBundle(boolean complete) {
+        if (bundleCommands.isEmpty()) return;
+        
+        Runnable[] commands = bundleCommands.toArray(new Runnable[0]);
+        bundleCommands.clear();
+        if (!complete) {
+            log.warn("Dropped " + commands.length + " OSC command(s) of a malformed bundle from " + oscReceiver.getCurrentSender());
+            return;
+        }
+        
+        InetSocketAddress sender = oscReceiver.getCurrentSender();
+        InetSocketAddress client = sender != null ? replyTarget(sender) : null;
+        post(BUNDLE_COMMAND_LABEL, () -> {
+            long start = System.nanoTime();
+            for (Runnable command : commands) {
+                command.run();
+            }
+            int micros = (int) Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), Integer.MAX_VALUE);
+            
+            if (log.isDebugEnabled()) {
+                log.debug("Ran bundle of " + commands.length + " OSC command(s) in " + micros + " us");
+            }
+            if (client != null) {
+                sendBatchDone(client, micros);
+            }
+        });
+    }
+    
+    // The host thread is asked to flush if it is not about to drain the queue anyway
+    private void enqueue(String label, Runnable command) {
+        if (commandQueue.post(label, command)) {
+            host.requestFlush();
+        }
+    }
+    
+    // Milliseconds until the time tag of the bundle being dispatched, 0 to run as soon as possible
+    private long timetagDelay(String label) {
+        long timetagMillis = oscReceiver != null ? oscReceiver.getCurrentTimetagMillis() : 0;
+        if (timetagMillis == 0) return 0;
+        
+        long delayMillis = timetagMillis - System.currentTimeMillis();
+        if (delayMillis <= 0) {
+            lateTimetagCount++;
+            return 0;
+        }
+        if (delayMillis > MAX_TIMETAG_AHEAD_MS) {
+            skewedTimetagCount++;
+            if (log.isDebugEnabled()) {
+                log.debug("Running " + label + " at once, its time tag is " + delayMillis
+                    + " ms ahead, check the client's clock");
+            }
+            return 0;
         }
+        return delayMillis;
     }
     
     public interface OSCCallback {
@@ -380,5 +1191,9 @@ public class OSCManagerImpl {
         void onMakeRecordGroup();
         void onSendTransitionNames();
         void onTransitionTrigger(int index);
+        void onFullResync();
+        void onClientHello(InetSocketAddress client);
+        void onCuePage(InetSocketAddress client, int offset, int count);
+        void onScenePage(InetSocketAddress client, int offset, int count);
     }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.systemexklusiv.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zero-copy decoder for one incoming OSC message: wrap() only finds the address, the type tags and where
+ * each argument starts, values are read straight from the buffer when a handler asks for them.
+ * One view is reused for every message, so nothing it returns may be kept after the handler returns;
+ * getAddress() is a live view of the buffer and getString() is the only getter that allocates.
+ *
+ * Supports the OSC 1.0 types i, f, s, b plus h, d, S, c, r, m, t, T, F, N, I and array brackets.
+ */
+public final class OSCMessageView {
+
+    public static final int MAX_ARGUMENTS = 64;
+
+    private static final byte[] BUNDLE_TAG = { '#', 'b', 'u', 'n', 'd', 'l', 'e', 0 };
+
+    private final Address address = new Address();
+    private final char[] types = new char[MAX_ARGUMENTS];
+    private final int[] offsets = new int[MAX_ARGUMENTS];
+    private ByteBuffer buffer;
+    private int argumentCount;
+
+    /**
+     * Returns whether the element at offset is a bundle rather than a message.
+     */
+    public static boolean isBundle(ByteBuffer buffer, int offset, int length) {
+        if (length < BUNDLE_TAG.length) return false;
+
+        for (int i = 0; i < BUNDLE_TAG.length; i++) {
+            if (buffer.get(offset + i) != BUNDLE_TAG[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Points the view at the message in buffer[offset, offset + length). Messages without type tags
+     * (OSC 1.0 allows omitting them) have no arguments.
+     *
+     * @throws IllegalArgumentException if the message is malformed or has more than MAX_ARGUMENTS arguments
+     */
+    public void wrap(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.argumentCount = 0;
+        int end = offset + length;
+
+        int addressEnd = indexOfZero(buffer, offset, end);
+        address.set(offset, addressEnd - offset);
+
+        int position = offset + pad(addressEnd - offset + 1);
+        if (position >= end || buffer.get(position) != ',') return;
+
+        int tagsStart = position + 1;
+        int tagsEnd = indexOfZero(buffer, tagsStart, end);
+        position = position + pad(tagsEnd - position + 1);
+
+        for (int tag = tagsStart; tag < tagsEnd; tag++) {
+            char type = (char) buffer.get(tag);
+            int size;
+            switch (type) {
+                case 'i': case 'f': case 'c': case 'r': case 'm':
+                    size = 4;
+                    break;
+                case 'h': case 'd': case 't':
+                    size = 8;
+                    break;
+                case 's': case 'S':
+                    size = pad(indexOfZero(buffer, position, end) - position + 1);
+                    break;
+                case 'b':
+                    size = 4 + pad(readInt(buffer, position, end));
+                    break;
+                case 'T': case 'F': case 'N': case 'I':
+                    size = 0;
+                    break;
+                case '[': case ']':
+                    continue;  // Array elements are flattened into the argument list
+                default:
+                    throw new IllegalArgumentException("Unsupported OSC type tag '" + type + "'");
+            }
+            if (size < 0 || position + size > end) {
+                throw new IllegalArgumentException("Argument runs past the end of the message");
+            }
+            if (argumentCount == MAX_ARGUMENTS) {
+                throw new IllegalArgumentException("More than " + MAX_ARGUMENTS + " arguments");
+            }
+
+            types[argumentCount] = type;
+            offsets[argumentCount] = position;
+            argumentCount++;
+            position += size;
+        }
+    }
+
+    public CharSequence getAddress() {
+        return address;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    public char getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    public boolean isNumber(int index) {
+        if (index < 0 || index >= argumentCount) return false;
+
+        char type = types[index];
+        return type == 'i' || type == 'f' || type == 'h' || type == 'd';
+    }
+
+    /**
+     * Numeric argument as int, fractional parts are dropped like Number.intValue().
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        int position = offsets[index];
+        switch (types[index]) {
+            case 'i': return buffer.getInt(position);
+            case 'f': return (int) buffer.getFloat(position);
+            case 'h': return (int) buffer.getLong(position);
+            case 'd': return (int) buffer.getDouble(position);
+            case 'T': return 1;
+            case 'F': return 0;
+            default: throw new IllegalArgumentException("Argument " + index + " of type '" + types[index] + "' is not a number");
+        }
+    }
+
+    public float getFloat(int index) {
+        checkIndex(index);
+        int position = offsets[index];
+        switch (types[index]) {
+            case 'f': return buffer.getFloat(position);
+            case 'd': return (float) buffer.getDouble(position);
+            case 'h': return buffer.getLong(position);
+            case 'T': return 1;
+            case 'F': return 0;
+            default: return getInt(index);
+        }
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        if (types[index] != 's' && types[index] != 'S') {
+            throw new IllegalArgumentException("Argument " + index + " of type '" + types[index] + "' is not a string");
+        }
+        int position = offsets[index];
+        int end = indexOfZero(buffer, position, buffer.limit());
+        return decode(buffer, position, end - position, StandardCharsets.UTF_8);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= argumentCount) {
+            throw new IndexOutOfBoundsException("Argument " + index + " of " + argumentCount);
+        }
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private static int indexOfZero(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Missing string terminator");
+    }
+
+    private static int readInt(ByteBuffer buffer, int position, int end) {
+        if (position + 4 > end) {
+            throw new IllegalArgumentException("Message too short");
+        }
+        return buffer.getInt(position);
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /**
+     * The address bytes as characters, OSC addresses are ASCII.
+     */
+    private final class Address implements CharSequence {
+
+        private int offset;
+        private int length;
+
+        void set(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return decode(buffer, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.systemexklusiv.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Client side decoder for the compact name bank messages (/cue/bank, /scene/bank, /transition/bank).
+ * Only needs the JDK, so custom Java clients can copy it as is.
+ *
+ * Each message covers slots first to first + count - 1 and carries four arguments (",iibb"):
+ * int first, int count, blob bitmap with one bit per slot (LSB first) set for every non-empty name,
+ * blob with those names in slot order, each UTF-8 encoded and null terminated.
+ * Slots covered by the message whose bit is clear are empty. A bank larger than the MTU
+ * arrives as several messages covering consecutive ranges.
+ *
+ * Clients on javaosc 0.4 should use applyPacket() on the raw datagram: its converter skips four
+ * bytes after every blob whose length is a multiple of four, which breaks the 128 slot bitmap.
+ */
+public final class OSCNameBankDecoder {
+
+    private static final String TYPE_TAGS = ",iibb";
+
+    private OSCNameBankDecoder() {
+    }
+
+    /**
+     * Writes the names of one already parsed message into names, indexed by slot, and returns
+     * the number of slots it covered. Slots outside the names array are skipped.
+     *
+     * @throws IllegalArgumentException if the arguments are not a valid name bank message
+     */
+    public static int apply(List<Object> arguments, String[] names) {
+        if (arguments.size() != 4
+                || !(arguments.get(0) instanceof Integer) || !(arguments.get(1) instanceof Integer)
+                || !(arguments.get(2) instanceof byte[]) || !(arguments.get(3) instanceof byte[])) {
+            throw new IllegalArgumentException("Expected first, count, bitmap and names, got " + arguments);
+        }
+
+        byte[] bitmap = (byte[]) arguments.get(2);
+        byte[] packed = (byte[]) arguments.get(3);
+        return applyChunk((Integer) arguments.get(0), (Integer) arguments.get(1),
+            bitmap, 0, bitmap.length, packed, 0, packed.length, names);
+    }
+
+    /**
+     * Same as apply(), but parses the raw OSC message bytes itself. Returns the number of slots covered.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid name bank message
+     */
+    public static int applyPacket(byte[] packet, int length, String[] names) {
+        int position = skipString(packet, 0, length);  // Address
+        int tagsEnd = indexOfZero(packet, position, length);
+        String tags = new String(packet, position, tagsEnd - position, StandardCharsets.US_ASCII);
+        if (!TYPE_TAGS.equals(tags)) {
+            throw new IllegalArgumentException("Expected type tags " + TYPE_TAGS + ", got " + tags);
+        }
+        position = skipString(packet, position, length);
+
+        int first = readInt(packet, position, length);
+        int count = readInt(packet, position + 4, length);
+        position += 8;
+
+        int bitmapLength = readInt(packet, position, length);
+        int bitmapOffset = position + 4;
+        position = bitmapOffset + pad(bitmapLength);
+
+        int packedLength = readInt(packet, position, length);
+        int packedOffset = position + 4;
+        if (bitmapLength < 0 || packedLength < 0 || packedOffset + packedLength > length) {
+            throw new IllegalArgumentException("Blob runs past the end of the packet");
+        }
+
+        return applyChunk(first, count, packet, bitmapOffset, bitmapLength, packet, packedOffset, packedLength, names);
+    }
+
+    private static int applyChunk(int first, int count, byte[] bitmap, int bitmapOffset, int bitmapLength,
+                                  byte[] packed, int packedOffset, int packedLength, String[] names) {
+        if (first < 0 || count < 0 || bitmapLength < (count + 7) / 8) {
+            throw new IllegalArgumentException("Invalid slot range " + first + "+" + count);
+        }
+
+        int position = packedOffset;
+        int packedEnd = packedOffset + packedLength;
+        for (int i = 0; i < count; i++) {
+            String name = "";
+            if ((bitmap[bitmapOffset + (i >> 3)] & (1 << (i & 7))) != 0) {
+                int end = indexOfZero(packed, position, packedEnd);
+                name = new String(packed, position, end - position, StandardCharsets.UTF_8);
+                position = end + 1;
+            }
+
+            int slot = first + i;
+            if (slot < names.length) {
+                names[slot] = name;
+            }
+        }
+        return count;
+    }
+
+    private static int indexOfZero(byte[] data, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Missing string terminator");
+    }
+
+    private static int skipString(byte[] data, int from, int end) {
+        return from + pad(indexOfZero(data, from, end) - from + 1);
+    }
+
+    private static int readInt(byte[] data, int position, int end) {
+        if (position + 4 > end) {
+            throw new IllegalArgumentException("Packet too short");
+        }
+        return ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+            | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+}
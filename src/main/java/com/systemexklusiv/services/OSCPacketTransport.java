@@ -0,0 +1,31 @@
+package com.systemexklusiv.services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * How an OSCSendQueue gets its packets to the client. write() and flush() are only called from the
+ * queue's sender thread, close() once that thread has stopped.
+ */
+public interface OSCPacketTransport {
+
+    /**
+     * Sends the remaining bytes of packet, or buffers them until the next flush().
+     */
+    void write(ByteBuffer packet) throws IOException;
+
+    /**
+     * Pushes out whatever write() buffered, called whenever the send queue runs dry.
+     */
+    void flush() throws IOException;
+
+    void close() throws IOException;
+
+    /**
+     * Returns true once after the transport opened a connection to a client that has missed packets,
+     * i.e. a reconnect or a first connection after failed writes. The client then needs a snapshot.
+     */
+    boolean takeNewConnection();
+
+    String describe();
+}
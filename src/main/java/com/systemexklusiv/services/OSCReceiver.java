@@ -0,0 +1,414 @@
+package com.systemexklusiv.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Receive loop replacing javaosc's OSCPortIn, which allocates a buffer and a message object graph per packet
+ * and throws away the datagram's source.
+ *
+ * A receive thread does nothing but pull datagrams off the DatagramChannel into a fixed pool of direct
+ * buffers, a dispatch thread decodes them in place with an OSCMessageView and hands them to an OSCRouter.
+ * Nothing is allocated per packet. When every buffer is waiting for dispatch, e.g. while dispatch waits for
+ * the OSCManagerImpl lock during a snapshot, the receive thread waits too and further datagrams queue up
+ * in the socket buffer, which is enlarged for that. Only when that overflows are packets lost: the kernel
+ * counts those overruns, on Linux they are read back for the stats, elsewhere they are not available.
+ *
+ * The sender of the packet currently being dispatched is available to handlers through getCurrentSender(),
+ * the time tag of the bundle the current message came in through getCurrentTimetagMillis(). A BundleListener
+ * hears where each bundle starts and ends, so the commands in it can be handled as one.
+ * Packets arriving over other transports are fed in through dispatch(), one packet at a time.
+ */
+public class OSCReceiver implements Runnable {
+
+    /**
+     * Brackets the messages of every outermost bundle, nested bundles are part of it. Called on the dispatching thread.
+     */
+    public interface BundleListener {
+        void onBundleStart();
+
+        /**
+         * @param complete false if the bundle turned out malformed part way through
+         */
+        void onBundleEnd(boolean complete);
+    }
+
+    // Largest UDP payload over IPv4
+    private static final int BUFFER_SIZE = 65507;
+    private static final int BUFFER_POOL_SIZE = 16;
+    // Asked of the OS so bursts survive scheduling hiccups of the receive thread, it may grant less
+    private static final int SOCKET_RECEIVE_BUFFER_SIZE = 1 << 20;
+    // "#bundle" plus the time tag
+    private static final int BUNDLE_HEADER_SIZE = 16;
+    private static final int TIMETAG_OFFSET = 8;
+    // OSC time tags count seconds from 1900 like NTP, Java from 1970
+    private static final long NTP_EPOCH_OFFSET_SECONDS = 2208988800L;
+    private static final long TIMETAG_IMMEDIATELY = 1;
+
+    private final DatagramChannel channel;
+    private final int port;
+    private final OSCRouter router = new OSCRouter();
+    private BundleListener bundleListener;
+
+    // Pooled packets cycle from free to received (receive thread) and back to free (dispatch thread)
+    private final PacketRing freePackets = new PacketRing(BUFFER_POOL_SIZE);
+    private final PacketRing receivedPackets = new PacketRing(BUFFER_POOL_SIZE);
+    // Set while the receive thread waits for the dispatch thread to return a buffer
+    private volatile boolean receiverWaiting = false;
+
+    private final AtomicLong packetCount = new AtomicLong();
+    private final AtomicLong poolWaitCount = new AtomicLong();
+    private final AtomicLong poolWaitNanos = new AtomicLong();
+    private final AtomicLong truncatedCount = new AtomicLong();
+    private final AtomicLong malformedCount = new AtomicLong();
+    private volatile int maxPacketsWaiting = 0;
+
+    private volatile boolean listening = false;
+    private volatile Thread receiveThread;
+    private volatile Thread dispatchThread;
+
+    // Only touched while holding the dispatch lock
+    private final OSCMessageView messageView = new OSCMessageView();
+    private InetSocketAddress currentSender;
+    private long currentTimetagMillis = 0;
+    private int bundleDepth = 0;
+
+    public OSCReceiver(int port) throws IOException {
+        this.port = port;
+        this.channel = DatagramChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_RECEIVE_BUFFER_SIZE);
+            channel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        for (int i = 0; i < BUFFER_POOL_SIZE; i++) {
+            freePackets.offer(new Packet());
+        }
+    }
+
+    /**
+     * See OSCRouter.addRoute(), routes must be added before listening starts.
+     */
+    public void addRoute(String route, OSCRouter.Handler handler) {
+        router.addRoute(route, handler);
+    }
+
+    public void setFallback(OSCRouter.Handler fallback) {
+        router.setFallback(fallback);
+    }
+
+    public void setBundleListener(BundleListener bundleListener) {
+        this.bundleListener = bundleListener;
+    }
+
+    public void startListening() {
+        if (listening) return;
+
+        listening = true;
+        dispatchThread = new Thread(this::dispatchLoop, "OSC Dispatcher " + port);
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+
+        receiveThread = new Thread(this, "OSC Receiver " + port);
+        receiveThread.setDaemon(true);
+        receiveThread.start();
+    }
+
+    public void stopListening() {
+        listening = false;
+        LockSupport.unpark(dispatchThread);
+        LockSupport.unpark(receiveThread);
+    }
+
+    public void close() {
+        stopListening();
+        try {
+            channel.close();  // Unblocks receive()
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Source address of the packet whose messages are being dispatched.
+     * Only meaningful when called from a handler.
+     */
+    public InetSocketAddress getCurrentSender() {
+        return currentSender;
+    }
+
+    /**
+     * Time the bundle of the message being dispatched should take effect, in milliseconds since 1970,
+     * or 0 for messages outside a bundle and bundles tagged "immediately". The whole bundle takes effect
+     * together, so the tag of the outermost bundle counts. Only meaningful when called from a handler.
+     */
+    public long getCurrentTimetagMillis() {
+        return currentTimetagMillis;
+    }
+
+    /**
+     * Decodes one packet and hands its messages to the matching handlers. Malformed packets throw.
+     */
+    public void dispatch(byte[] data, int length, InetSocketAddress sender) {
+        dispatch(ByteBuffer.wrap(data, 0, length), sender);
+    }
+
+    /**
+     * Same as above for the bytes between position and limit of packet.
+     */
+    public synchronized void dispatch(ByteBuffer packet, InetSocketAddress sender) {
+        currentSender = sender;
+        try {
+            dispatchElement(packet, packet.position(), packet.remaining());
+        } finally {
+            currentSender = null;
+            currentTimetagMillis = 0;
+        }
+    }
+
+    private void dispatchElement(ByteBuffer packet, int offset, int length) {
+        if (!OSCMessageView.isBundle(packet, offset, length)) {
+            messageView.wrap(packet, offset, length);
+            router.dispatch(messageView);
+            return;
+        }
+
+        if (length < BUNDLE_HEADER_SIZE) {
+            throw new IllegalArgumentException("Bundle without time tag");
+        }
+
+        boolean outermost = bundleDepth == 0;
+        if (outermost) {
+            long timetag = packet.getLong(offset + TIMETAG_OFFSET);
+            currentTimetagMillis = timetag != TIMETAG_IMMEDIATELY && timetag != 0 ? toEpochMillis(timetag) : 0;
+            if (bundleListener != null) {
+                bundleListener.onBundleStart();
+            }
+        }
+
+        bundleDepth++;
+        boolean complete = false;
+        try {
+            int position = offset + BUNDLE_HEADER_SIZE;
+            int end = offset + length;
+            while (position + 4 <= end) {
+                int size = packet.getInt(position);
+                position += 4;
+                if (size <= 0 || position + size > end) {
+                    throw new IllegalArgumentException("Bundle element runs past the end of the packet");
+                }
+                dispatchElement(packet, position, size);
+                position += size;
+            }
+            complete = true;
+        } finally {
+            bundleDepth--;
+            if (outermost) {
+                try {
+                    if (bundleListener != null) {
+                        bundleListener.onBundleEnd(complete);
+                    }
+                } finally {
+                    currentTimetagMillis = 0;
+                }
+            }
+        }
+    }
+
+    // Upper 32 bits are seconds, lower 32 bits the fraction of a second, both unsigned
+    private static long toEpochMillis(long timetag) {
+        long seconds = timetag >>> 32;
+        long fraction = timetag & 0xFFFFFFFFL;
+        return (seconds - NTP_EPOCH_OFFSET_SECONDS) * 1000 + (fraction * 1000 >>> 32);
+    }
+
+    @Override
+    public void run() {
+        // A packet the receive thread could not use is kept here, only the dispatch thread returns packets to the pool
+        Packet spare = null;
+
+        while (listening) {
+            Packet packet = spare != null ? spare : takeFreePacket();
+            spare = null;
+            if (packet == null) break;  // Stopped while waiting
+
+            ByteBuffer buffer = packet.buffer;
+            buffer.clear();
+
+            SocketAddress sender;
+            try {
+                sender = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                break;  // Channel closed
+            } catch (IOException e) {
+                spare = packet;
+                continue;
+            }
+
+            packetCount.incrementAndGet();
+            if (!buffer.hasRemaining()) {
+                truncatedCount.incrementAndGet();  // Filled the whole buffer, the rest of the datagram is gone
+                spare = packet;
+                continue;
+            }
+
+            buffer.flip();
+            packet.sender = (InetSocketAddress) sender;
+            receivedPackets.offer(packet);
+            int waiting = receivedPackets.size();
+            if (waiting > maxPacketsWaiting) {
+                maxPacketsWaiting = waiting;
+            }
+            LockSupport.unpark(dispatchThread);
+        }
+    }
+
+    // Waits while every buffer is queued for dispatch, datagrams meanwhile stay in the socket buffer
+    private Packet takeFreePacket() {
+        Packet packet = freePackets.poll();
+        if (packet != null) return packet;
+
+        poolWaitCount.incrementAndGet();
+        long waitStart = System.nanoTime();
+        receiverWaiting = true;
+        while (listening && (packet = freePackets.poll()) == null) {
+            LockSupport.park(this);
+        }
+        receiverWaiting = false;
+        poolWaitNanos.addAndGet(System.nanoTime() - waitStart);
+        return packet;
+    }
+
+    private void dispatchLoop() {
+        while (listening) {
+            Packet packet = receivedPackets.poll();
+            if (packet == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                dispatch(packet.buffer, packet.sender);
+            } catch (Exception e) {
+                malformedCount.incrementAndGet();  // Malformed packet, keep listening
+            } finally {
+                packet.sender = null;
+                freePackets.offer(packet);
+                if (receiverWaiting) {
+                    LockSupport.unpark(receiveThread);
+                }
+            }
+        }
+    }
+
+    /**
+     * Datagrams the kernel dropped because the socket buffer was full, -1 where the OS does not tell.
+     * Only available while the receiver is open.
+     */
+    public long getOverrunCount() {
+        int localPort;
+        try {
+            localPort = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+
+        // Linux lists every UDP socket with its drop counter in the last column, IPv4 and dual stack separately
+        String portSuffix = String.format(":%04X", localPort);
+        for (String table : new String[] { "/proc/net/udp", "/proc/net/udp6" }) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(table))) {
+                reader.readLine();  // Header
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields.length > 12 && fields[1].endsWith(portSuffix)) {
+                        return Long.parseLong(fields[fields.length - 1]);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Not Linux, or a format we do not know
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Call before close(), the socket's stats go with it.
+     */
+    public String describe() {
+        long overruns = getOverrunCount();
+        String description = "port " + port + ": received " + packetCount.get()
+            + ", overruns " + (overruns >= 0 ? String.valueOf(overruns) : "n/a")
+            + ", buffer pool waits " + poolWaitCount.get() + " (" + TimeUnit.NANOSECONDS.toMillis(poolWaitNanos.get()) + " ms"
+            + ", pool " + BUFFER_POOL_SIZE + ", most queued " + maxPacketsWaiting + ")"
+            + ", truncated " + truncatedCount.get() + ", malformed " + malformedCount.get()
+            + ", unmatched messages " + router.getUnmatchedMessages();
+        try {
+            description += ", socket buffer " + channel.getOption(StandardSocketOptions.SO_RCVBUF) + " bytes";
+        } catch (IOException e) {
+            // Closed, the socket buffer size is gone with it
+        }
+        return description;
+    }
+
+    private static final class Packet {
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private InetSocketAddress sender;
+    }
+
+    /**
+     * A single-producer/single-consumer ring of pooled packets. It can hold the whole pool, so offer() never fails.
+     */
+    private static final class PacketRing {
+
+        private final Packet[] slots;
+        private final int mask;
+
+        // head is only advanced by the consumer, tail only by the producer
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        PacketRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.slots = new Packet[size];
+            this.mask = size - 1;
+        }
+
+        void offer(Packet packet) {
+            long currentTail = tail.get();
+            slots[(int) currentTail & mask] = packet;
+            // A full write, the waiting flag checked right after must not be read before it
+            tail.set(currentTail + 1);
+        }
+
+        Packet poll() {
+            long currentHead = head.get();
+            if (currentHead == tail.get()) return null;
+
+            int index = (int) currentHead & mask;
+            Packet packet = slots[index];
+            slots[index] = null;
+            head.lazySet(currentHead + 1);
+            return packet;
+        }
+
+        int size() {
+            return (int) (tail.get() - head.get());
+        }
+    }
+}
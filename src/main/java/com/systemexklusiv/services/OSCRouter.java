@@ -0,0 +1,261 @@
+package com.systemexklusiv.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incoming OSC dispatch: the routes are compiled into a trie with one node per address segment,
+ * so a message is matched by walking its address once instead of offering it to every listener.
+ *
+ * A route segment "#" matches a number (e.g. the 3 in /cue/trigger/3, a fractional part is ignored),
+ * which is parsed in place and passed to the handler. Incoming addresses may use the full OSC 1.0
+ * pattern syntax per segment: '?', '*', [abc], [a-z], [!abc] and {foo,bar}. A pattern segment matches
+ * literal route segments only, the message then goes to every route it matches.
+ * Matching reads the address through OSCMessageView's CharSequence, so no strings are built per message.
+ */
+public class OSCRouter {
+
+    public static final String NUMBER_SEGMENT = "#";
+    public static final int NO_NUMBER = -1;
+
+    public interface Handler {
+        /**
+         * @param number the value of the route's "#" segment, NO_NUMBER if it has none
+         * @param message only valid until the handler returns, its address is the one sent and may be a pattern
+         */
+        void handle(int number, OSCMessageView message);
+    }
+
+    private final Node root = new Node("");
+    private Handler fallback;
+    private long unmatchedMessages = 0;
+
+    /**
+     * Registers a handler for a route such as "/cue/trigger/#". At most one segment may be "#".
+     */
+    public void addRoute(String route, Handler handler) {
+        if (!route.startsWith("/")) {
+            throw new IllegalArgumentException("Route must start with '/': " + route);
+        }
+
+        Node node = root;
+        for (String segment : route.substring(1).split("/", -1)) {
+            node = node.child(segment);
+        }
+        node.handler = handler;
+    }
+
+    /**
+     * Called with NO_NUMBER for messages no route matches.
+     */
+    public void setFallback(Handler fallback) {
+        this.fallback = fallback;
+    }
+
+    public long getUnmatchedMessages() {
+        return unmatchedMessages;
+    }
+
+    /**
+     * Calls the handler of every route the address matches and returns how many were called.
+     */
+    public int dispatch(OSCMessageView message) {
+        CharSequence address = message.getAddress();
+        int handled = address.length() > 0 && address.charAt(0) == '/' ? match(root, message, address, 0, NO_NUMBER) : 0;
+        if (handled == 0) {
+            unmatchedMessages++;
+            if (fallback != null) {
+                fallback.handle(NO_NUMBER, message);
+            }
+        }
+        return handled;
+    }
+
+    // position points at the '/' in front of the next segment, or at the end of the address
+    private int match(Node node, OSCMessageView message, CharSequence address, int position, int number) {
+        int length = address.length();
+        if (position == length) {
+            if (node.handler == null) return 0;
+            node.handler.handle(number, message);
+            return 1;
+        }
+
+        int start = position + 1;
+        int end = indexOf(address, '/', start, length);
+
+        boolean pattern = isPattern(address, start, end);
+        int handled = 0;
+        for (int i = 0; i < node.literals.size(); i++) {
+            Node child = node.literals.get(i);
+            boolean matches = pattern
+                ? matchesPattern(address, start, end, child.name, 0)
+                : end - start == child.name.length() && regionMatches(child.name, 0, address, start, end - start);
+            if (matches) {
+                handled += match(child, message, address, end, number);
+            }
+        }
+
+        if (node.number != null && !pattern) {
+            int value = parseNumber(address, start, end);
+            if (value != NO_NUMBER) {
+                handled += match(node.number, message, address, end, value);
+            }
+        }
+        return handled;
+    }
+
+    // Index of c in address[from, end), end if there is none
+    private static int indexOf(CharSequence address, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (address.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean regionMatches(String name, int n, CharSequence address, int p, int length) {
+        if (n + length > name.length()) return false;
+
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(n + i) != address.charAt(p + i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isPattern(CharSequence address, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Digits with an optional fractional part, which is dropped. Returns NO_NUMBER for anything else
+    private static int parseNumber(CharSequence address, int start, int end) {
+        if (start == end) return NO_NUMBER;
+
+        int value = 0;
+        int i = start;
+        for (; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == '.' && i > start) break;
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) return NO_NUMBER;
+            value = value * 10 + (c - '0');
+        }
+        if (i < end) {
+            for (i++; i < end; i++) {
+                char c = address.charAt(i);
+                if (c < '0' || c > '9') return NO_NUMBER;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Matches the pattern in address[p, end) against name[n, name.length()).
+     */
+    static boolean matchesPattern(CharSequence address, int p, int end, String name, int n) {
+        while (p < end) {
+            char c = address.charAt(p);
+            switch (c) {
+                case '*': {
+                    // Collapse runs of '*', then try every possible tail
+                    while (p < end && address.charAt(p) == '*') {
+                        p++;
+                    }
+                    if (p == end) return true;
+                    for (int i = n; i <= name.length(); i++) {
+                        if (matchesPattern(address, p, end, name, i)) return true;
+                    }
+                    return false;
+                }
+                case '?':
+                    if (n == name.length()) return false;
+                    p++;
+                    n++;
+                    break;
+                case '[': {
+                    int close = indexOf(address, ']', p + 1, end);
+                    if (close == end || n == name.length()) return false;
+                    if (!matchesCharClass(address, p + 1, close, name.charAt(n))) return false;
+                    p = close + 1;
+                    n++;
+                    break;
+                }
+                case '{': {
+                    int close = indexOf(address, '}', p + 1, end);
+                    if (close == end) return false;
+                    int option = p + 1;
+                    while (option <= close) {
+                        int optionEnd = indexOf(address, ',', option, close);
+                        int optionLength = optionEnd - option;
+                        if (regionMatches(name, n, address, option, optionLength)
+                                && matchesPattern(address, close + 1, end, name, n + optionLength)) {
+                            return true;
+                        }
+                        option = optionEnd + 1;
+                    }
+                    return false;
+                }
+                default:
+                    if (n == name.length() || name.charAt(n) != c) return false;
+                    p++;
+                    n++;
+            }
+        }
+        return n == name.length();
+    }
+
+    // [abc], [a-z] or [!abc], start and end exclude the brackets
+    private static boolean matchesCharClass(CharSequence address, int start, int end, char c) {
+        boolean negate = start < end && address.charAt(start) == '!';
+        if (negate) {
+            start++;
+        }
+
+        boolean found = false;
+        for (int i = start; i < end && !found; i++) {
+            char from = address.charAt(i);
+            if (i + 2 < end && address.charAt(i + 1) == '-') {
+                found = c >= from && c <= address.charAt(i + 2);
+                i += 2;
+            } else {
+                found = c == from;
+            }
+        }
+        return found != negate;
+    }
+
+    private static final class Node {
+
+        private final String name;
+        private final List<Node> literals = new ArrayList<>();
+        private Node number;
+        private Handler handler;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        Node child(String segment) {
+            if (NUMBER_SEGMENT.equals(segment)) {
+                if (number == null) {
+                    number = new Node(segment);
+                }
+                return number;
+            }
+
+            for (Node literal : literals) {
+                if (literal.name.equals(segment)) {
+                    return literal;
+                }
+            }
+            Node literal = new Node(segment);
+            literals.add(literal);
+            return literal;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.systemexklusiv.services;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One OSC destination: two bounded single-producer/single-consumer rings of encoded packets,
+ * drained by its own sender thread over its own transport, plus the health stats for that client
+ * and the part of each name bank it currently shows.
+ * The producer is OSCManagerImpl (always under its lock), so host callbacks never block on the socket
+ * and a slow client only ever delays itself.
+ *
+ * The priority lane carries live state feedback and is always drained first. The bulk lane carries
+ * name syncs and is paced by a token bucket, so a big sync neither floods the network nor delays feedback.
+ *
+ * Policy is drop-newest: when a ring is full offer() refuses the packet and counts it as dropped,
+ * packets already queued are never touched by the producer.
+ */
+public class OSCSendQueue implements Runnable {
+
+    public static final int PRIORITY_LANE = 0;
+    public static final int BULK_LANE = 1;
+    public static final String[] LANE_LABELS = { "priority", "bulk" };
+
+    // Viewport count meaning the whole bank
+    public static final int ALL_SLOTS = Integer.MAX_VALUE;
+
+    private static final long STOP_TIMEOUT_MS = 500;
+    // The bucket holds this much of the rate, i.e. the longest burst the bulk lane may send at once
+    private static final long BURST_MILLIS = 100;
+
+    private final OSCPacketTransport transport;
+    private final InetSocketAddress target;
+    private final Lane[] lanes;
+
+    private final AtomicLong sentPackets = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong throttledNanos = new AtomicLong();
+
+    // Only written by the sender thread
+    private volatile int consecutiveErrors = 0;
+    private volatile long lastSendMillis = 0;
+    private volatile String lastError;
+
+    // Bulk lane rate in bytes per second, 0 means unlimited. The bucket itself is only touched by the sender thread
+    private volatile long bulkBytesPerSecond = 0;
+    private long tokens = 0;
+    private long lastRefillNanos = System.nanoTime();
+
+    // Viewport per name bank, only touched by the producer
+    private final int[] viewportOffsets = new int[OSCAddressTable.NAME_BANK_COUNT];
+    private final int[] viewportCounts = new int[OSCAddressTable.NAME_BANK_COUNT];
+    private long outsideViewportMessages = 0;
+
+    private volatile boolean running = false;
+    private volatile Thread thread;
+
+    /**
+     * @param priorityCapacity number of packets in the priority lane, rounded up to a power of two
+     * @param bulkCapacity number of packets in the bulk lane, rounded up to a power of two
+     * @param slotSize initial size of every slot, slots grow on demand for bigger packets
+     */
+    public OSCSendQueue(InetSocketAddress target, OSCPacketTransport transport, int priorityCapacity, int bulkCapacity, int slotSize) {
+        this.transport = transport;
+        this.target = target;
+        this.lanes = new Lane[] { new Lane(priorityCapacity, slotSize), new Lane(bulkCapacity, slotSize) };
+        Arrays.fill(viewportCounts, ALL_SLOTS);
+    }
+
+    public void start() {
+        if (running) return;
+
+        running = true;
+        thread = new Thread(this, "OSC Sender " + target);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+
+        Thread senderThread = thread;
+        if (senderThread == null) return;
+
+        LockSupport.unpark(senderThread);
+        try {
+            senderThread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    public void close() {
+        stop();
+        try {
+            transport.close();
+        } catch (IOException e) {
+            lastError = e.getMessage();
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of packet into the next free slot of the given lane.
+     * Returns false and counts a drop if that lane is full.
+     */
+    public boolean offer(ByteBuffer packet, int lane) {
+        if (!lanes[lane].offer(packet)) {
+            return false;
+        }
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    /**
+     * Limits the bulk lane to the given rate, 0 removes the limit. Priority packets are never held back,
+     * but they use up tokens too, so the limit covers all traffic to this client.
+     */
+    public void setBulkRateLimit(long bytesPerSecond) {
+        bulkBytesPerSecond = Math.max(bytesPerSecond, 0);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Limits the given name bank to count slots starting at offset, a count of zero or less shows the whole bank again.
+     */
+    public void setViewport(int bank, int offset, int count) {
+        viewportOffsets[bank] = count > 0 ? Math.max(offset, 0) : 0;
+        viewportCounts[bank] = count > 0 ? count : ALL_SLOTS;
+    }
+
+    /**
+     * Returns whether the client shows the slot, counting the message as suppressed if it does not.
+     */
+    public boolean acceptsName(int bank, int index) {
+        int offset = index - viewportOffsets[bank];
+        if (offset >= 0 && offset < viewportCounts[bank]) {
+            return true;
+        }
+        outsideViewportMessages++;
+        return false;
+    }
+
+    public boolean hasViewport(int bank) {
+        return viewportCounts[bank] != ALL_SLOTS;
+    }
+
+    @Override
+    public void run() {
+        Lane priority = lanes[PRIORITY_LANE];
+        Lane bulk = lanes[BULK_LANE];
+
+        while (running) {
+            long rate = bulkBytesPerSecond;
+            refillTokens(rate);
+
+            Lane next;
+            if (!priority.isEmpty()) {
+                next = priority;
+            } else if (!bulk.isEmpty()) {
+                if (rate > 0 && tokens <= 0) {
+                    // Sleep until the bucket is positive again, a priority packet wakes us up earlier
+                    flushTransport();
+                    long waitNanos = TimeUnit.SECONDS.toNanos(1 - tokens) / rate;
+                    long parkStart = System.nanoTime();
+                    LockSupport.parkNanos(this, Math.max(waitNanos, 1));
+                    throttledNanos.addAndGet(System.nanoTime() - parkStart);
+                    continue;
+                }
+                next = bulk;
+            } else {
+                flushTransport();
+                LockSupport.park(this);
+                continue;
+            }
+
+            ByteBuffer slot = next.peek();
+            int size = slot.remaining();
+            try {
+                transport.write(slot);
+                sentPackets.incrementAndGet();
+                sentBytes.addAndGet(size);
+                lastSendMillis = System.currentTimeMillis();
+                consecutiveErrors = 0;
+            } catch (IOException e) {
+                sendErrors.incrementAndGet();
+                consecutiveErrors++;
+                lastError = e.getMessage();
+            }
+            if (rate > 0) {
+                // A packet bigger than the bucket may drive it negative, the next bulk send then waits longer
+                tokens -= size;
+            }
+
+            next.advance();
+        }
+    }
+
+    private void flushTransport() {
+        try {
+            transport.flush();
+        } catch (IOException e) {
+            sendErrors.incrementAndGet();
+            consecutiveErrors++;
+            lastError = e.getMessage();
+        }
+    }
+
+    private void refillTokens(long rate) {
+        long now = System.nanoTime();
+        if (rate <= 0) {
+            tokens = 0;
+            lastRefillNanos = now;
+            return;
+        }
+
+        long added = (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1);
+        if (added > 0) {
+            long burst = Math.max(rate * BURST_MILLIS / 1000, 1);
+            tokens = Math.min(tokens + added, burst);
+            lastRefillNanos = now;
+        }
+    }
+
+    public InetSocketAddress getTarget() {
+        return target;
+    }
+
+    /**
+     * See OSCPacketTransport.takeNewConnection()
+     */
+    public boolean takeNewConnection() {
+        return transport.takeNewConnection();
+    }
+
+    public int getCapacity(int lane) {
+        return lanes[lane].capacity();
+    }
+
+    public int getDepth(int lane) {
+        return lanes[lane].depth();
+    }
+
+    public long getQueuedPackets(int lane) {
+        return lanes[lane].queuedPackets.get();
+    }
+
+    public long getDroppedPackets(int lane) {
+        return lanes[lane].droppedPackets.get();
+    }
+
+    public long getSentPackets() {
+        return sentPackets.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    public long getSendErrors() {
+        return sendErrors.get();
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public int getConsecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    public long getLastSendMillis() {
+        return lastSendMillis;
+    }
+
+    public long getBulkRateLimit() {
+        return bulkBytesPerSecond;
+    }
+
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+    }
+
+    public long getOutsideViewportMessages() {
+        return outsideViewportMessages;
+    }
+
+    public String describe() {
+        String description = target + " (" + transport.describe() + "):";
+        for (int lane = 0; lane < lanes.length; lane++) {
+            description += " " + LANE_LABELS[lane] + " depth " + getDepth(lane) + "/" + getCapacity(lane)
+                + " (queued " + getQueuedPackets(lane) + ", dropped " + getDroppedPackets(lane) + "),";
+        }
+        description += " sent " + getSentPackets() + " (" + getSentBytes() + " bytes)"
+            + ", errors " + getSendErrors();
+        if (bulkBytesPerSecond > 0) {
+            description += ", bulk limit " + bulkBytesPerSecond + " bytes/s (throttled " + getThrottledMillis() + " ms)";
+        }
+        for (int bank = 0; bank < OSCAddressTable.NAME_BANK_COUNT; bank++) {
+            if (hasViewport(bank)) {
+                description += ", " + OSCAddressTable.NAME_BANK_LABELS[bank] + " viewport "
+                    + viewportOffsets[bank] + "+" + viewportCounts[bank];
+            }
+        }
+        if (outsideViewportMessages > 0) {
+            description += ", outside viewport " + outsideViewportMessages;
+        }
+        if (consecutiveErrors > 0) {
+            description += " (" + consecutiveErrors + " in a row, last: " + lastError + ")";
+        }
+        return description;
+    }
+
+    /**
+     * A single-producer/single-consumer ring of packets.
+     */
+    private static final class Lane {
+
+        private final ByteBuffer[] slots;
+        private final int mask;
+
+        // head is only advanced by the sender thread, tail only by the producer
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        private final AtomicLong queuedPackets = new AtomicLong();
+        private final AtomicLong droppedPackets = new AtomicLong();
+
+        Lane(int capacity, int slotSize) {
+            int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.slots = new ByteBuffer[size];
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                slots[i] = ByteBuffer.allocateDirect(slotSize);
+            }
+        }
+
+        boolean offer(ByteBuffer packet) {
+            long currentTail = tail.get();
+            if (currentTail - head.get() >= slots.length) {
+                droppedPackets.incrementAndGet();
+                return false;
+            }
+
+            int index = (int) currentTail & mask;
+            ByteBuffer slot = slots[index];
+            if (slot.capacity() < packet.remaining()) {
+                slot = ByteBuffer.allocateDirect(packet.remaining());
+                slots[index] = slot;
+            }
+
+            slot.clear();
+            slot.put(packet);
+            slot.flip();
+
+            tail.lazySet(currentTail + 1);
+            queuedPackets.incrementAndGet();
+            return true;
+        }
+
+        boolean isEmpty() {
+            return head.get() == tail.get();
+        }
+
+        ByteBuffer peek() {
+            return slots[(int) head.get() & mask];
+        }
+
+        void advance() {
+            head.lazySet(head.get() + 1);
+        }
+
+        int capacity() {
+            return slots.length;
+        }
+
+        int depth() {
+            return (int) (tail.get() - head.get());
+        }
+    }
+}
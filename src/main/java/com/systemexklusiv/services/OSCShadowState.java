@@ -0,0 +1,67 @@
+package com.systemexklusiv.services;
+
+import java.util.Arrays;
+
+/**
+ * Last value sent to each outgoing OSC address, one String array per bank.
+ * Lets OSCManagerImpl drop messages the client already has, so only real deltas go on the wire.
+ */
+public class OSCShadowState {
+
+    private static final int NO_COUNT = -1;
+
+    private final String[][] names;
+    private int cueCount = NO_COUNT;
+    private int sceneCount = NO_COUNT;
+
+    public OSCShadowState(int bankSize) {
+        names = new String[OSCAddressTable.NAME_BANK_COUNT][bankSize];
+    }
+
+    /**
+     * Records the value for the given bank slot, bank is one of the OSCAddressTable name banks.
+     * Returns false when the client already has exactly this value and the send can be skipped.
+     */
+    public synchronized boolean updateName(int bank, int index, String name) {
+        String[] values = names[bank];
+        if (index < 0 || index >= values.length) {
+            return true;  // Not tracked, always send
+        }
+
+        if (name != null && name.equals(values[index])) {
+            return false;
+        }
+
+        values[index] = name;
+        return true;
+    }
+
+    public synchronized boolean updateCueCount(int count) {
+        if (count == cueCount) {
+            return false;
+        }
+
+        cueCount = count;
+        return true;
+    }
+
+    public synchronized boolean updateSceneCount(int count) {
+        if (count == sceneCount) {
+            return false;
+        }
+
+        sceneCount = count;
+        return true;
+    }
+
+    /**
+     * Forgets everything that was sent, the next update for every address goes out again.
+     */
+    public synchronized void invalidate() {
+        for (String[] values : names) {
+            Arrays.fill(values, null);
+        }
+        cueCount = NO_COUNT;
+        sceneCount = NO_COUNT;
+    }
+}
@@ -0,0 +1,217 @@
+package com.systemexklusiv.services;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * OSC 1.1 stream transport: packets are SLIP framed (double END) over one TCP connection to the client.
+ * Writes are collected in a buffer and go out in one write per flush, so a whole snapshot usually
+ * leaves in a handful of segments. The connection is opened on the first write and re-opened after
+ * failures, at most once per RECONNECT_DELAY_MS. Frames the client sends back on the same connection
+ * are decoded by a reader thread and handed to the FrameListener.
+ */
+public class OSCSlipTransport implements OSCPacketTransport {
+
+    public interface FrameListener {
+        void onFrame(byte[] frame, int length, InetSocketAddress source);
+    }
+
+    private static final byte END = (byte) 0xC0;
+    private static final byte ESC = (byte) 0xDB;
+    private static final byte ESC_END = (byte) 0xDC;
+    private static final byte ESC_ESC = (byte) 0xDD;
+
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 1000;
+    private static final int MAX_PACKET_SIZE = 65507;
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final InetSocketAddress target;
+    private final FrameListener frameListener;
+    // Worst case every byte is escaped, plus the two END bytes
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(2 * MAX_PACKET_SIZE + 2);
+
+    // Set by the sender thread on connect, cleared by whichever thread notices the connection is gone
+    private final AtomicReference<SocketChannel> channel = new AtomicReference<>();
+    private final AtomicBoolean newConnection = new AtomicBoolean();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private volatile boolean closed = false;
+    // Sender thread only
+    private long lastConnectAttempt = 0;
+    private boolean lostWrites = false;
+
+    public OSCSlipTransport(InetSocketAddress target, FrameListener frameListener) {
+        this.target = target;
+        this.frameListener = frameListener;
+    }
+
+    @Override
+    public void write(ByteBuffer packet) throws IOException {
+        try {
+            ensureConnected();
+        } catch (IOException e) {
+            lostWrites = true;
+            throw e;
+        }
+        if (writeBuffer.remaining() < 2 * packet.remaining() + 2) {
+            flush();
+        }
+
+        writeBuffer.put(END);
+        while (packet.hasRemaining()) {
+            byte b = packet.get();
+            if (b == END) {
+                writeBuffer.put(ESC).put(ESC_END);
+            } else if (b == ESC) {
+                writeBuffer.put(ESC).put(ESC_ESC);
+            } else {
+                writeBuffer.put(b);
+            }
+        }
+        writeBuffer.put(END);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writeBuffer.position() == 0) return;
+
+        writeBuffer.flip();
+        SocketChannel current = channel.get();
+        try {
+            if (current == null) {
+                throw new IOException("Not connected to " + target);
+            }
+            while (writeBuffer.hasRemaining()) {
+                current.write(writeBuffer);
+            }
+        } catch (IOException e) {
+            lostWrites = true;
+            disconnect(current);
+            throw e;
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        disconnect(channel.get());
+    }
+
+    @Override
+    public boolean takeNewConnection() {
+        return newConnection.getAndSet(false);
+    }
+
+    @Override
+    public String describe() {
+        return "TCP " + (channel.get() != null ? "connected" : "disconnected")
+            + ", connections " + connections.get() + ", frames received " + receivedFrames.get();
+    }
+
+    private void ensureConnected() throws IOException {
+        SocketChannel current = channel.get();
+        if (current != null && current.isOpen()) return;
+
+        long now = System.currentTimeMillis();
+        if (closed || now - lastConnectAttempt < RECONNECT_DELAY_MS) {
+            throw new IOException("Not connected to " + target);
+        }
+        lastConnectAttempt = now;
+        if (writeBuffer.position() > 0) {
+            lostWrites = true;  // Buffered for the connection that just went away
+            writeBuffer.clear();
+        }
+
+        SocketChannel opened = SocketChannel.open();
+        try {
+            opened.socket().connect(target, CONNECT_TIMEOUT_MS);
+            opened.socket().setTcpNoDelay(true);  // Writes are already batched per flush
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+
+        // The first connection needs no snapshot unless packets were lost before it, a reconnect always does
+        if (connections.getAndIncrement() > 0 || lostWrites) {
+            newConnection.set(true);
+        }
+        lostWrites = false;
+        channel.set(opened);
+
+        Thread reader = new Thread(() -> readFrames(opened), "OSC TCP Reader " + target);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void disconnect(SocketChannel current) {
+        if (current == null) return;
+
+        channel.compareAndSet(current, null);
+        try {
+            current.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    private void readFrames(SocketChannel source) {
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        byte[] frame = new byte[MAX_PACKET_SIZE];
+        int length = 0;
+        boolean escaped = false;
+        boolean oversized = false;
+
+        try {
+            while (source.read(readBuffer) >= 0) {
+                readBuffer.flip();
+                while (readBuffer.hasRemaining()) {
+                    byte b = readBuffer.get();
+                    if (b == END) {
+                        if (length > 0 && !oversized) {
+                            deliver(frame, length);
+                        }
+                        length = 0;
+                        escaped = false;
+                        oversized = false;
+                        continue;
+                    }
+                    if (b == ESC) {
+                        escaped = true;
+                        continue;
+                    }
+                    if (escaped) {
+                        b = b == ESC_END ? END : b == ESC_ESC ? ESC : b;
+                        escaped = false;
+                    }
+                    if (length < frame.length) {
+                        frame[length++] = b;
+                    } else {
+                        oversized = true;  // Drop the frame, resynchronise on the next END
+                    }
+                }
+                readBuffer.clear();
+            }
+        } catch (IOException e) {
+            // Connection closed, the next write reconnects
+        } finally {
+            disconnect(source);
+        }
+    }
+
+    private void deliver(byte[] frame, int length) {
+        receivedFrames.incrementAndGet();
+        try {
+            frameListener.onFrame(frame, length, target);
+        } catch (Exception e) {
+            // Malformed packet, keep reading
+        }
+    }
+}
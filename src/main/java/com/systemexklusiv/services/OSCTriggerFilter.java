@@ -0,0 +1,135 @@
+package com.systemexklusiv.services;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which incoming cue, scene and transition triggers actually fire. Buttons send 1.0 on press
+ * and 0.0 on release, so only a press fires; a trigger without a numeric argument counts as a press.
+ * A press on the same address within the debounce window of the last one that fired is dropped as a
+ * double tap.
+ *
+ * The time each address last fired is kept in an open addressing table keyed by (kind, index) as a
+ * long, so the check does not allocate. Only used from the receiver's dispatch lock.
+ */
+public class OSCTriggerFilter {
+
+    public static final int CUE = 0;
+    public static final int SCENE = 1;
+    public static final int TRANSITION = 2;
+    private static final String[] KIND_LABELS = { "cue", "scene", "transition" };
+
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private volatile long windowNanos;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] firedNanos = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private final long[] firedCounts = new long[KIND_LABELS.length];
+    private final long[] releaseCounts = new long[KIND_LABELS.length];
+    private final long[] repeatCounts = new long[KIND_LABELS.length];
+
+    public OSCTriggerFilter(long windowMillis) {
+        setWindow(windowMillis);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Sets the debounce window, 0 lets every press through.
+     */
+    public void setWindow(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(windowMillis, 0));
+    }
+
+    public long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    }
+
+    /**
+     * Returns true if the trigger should fire, counting it as suppressed otherwise.
+     */
+    public boolean accept(int kind, int index, OSCMessageView message) {
+        if (!isPress(message)) {
+            releaseCounts[kind]++;
+            return false;
+        }
+
+        long now = System.nanoTime();
+        long key = ((long) kind << 32) | index;
+        int slot = find(key);
+        if (keys[slot] == key && now - firedNanos[slot] < windowNanos) {
+            repeatCounts[kind]++;
+            return false;
+        }
+
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            size++;
+        }
+        firedNanos[slot] = now;
+        firedCounts[kind]++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    // Only 1.0 (or true) is a press, anything below is a release or a fader passing by
+    private static boolean isPress(OSCMessageView message) {
+        if (message.getArgumentCount() == 0) return true;
+
+        switch (message.getType(0)) {
+            case 'i': case 'f': case 'h': case 'd': case 'T': case 'F':
+                return message.getFloat(0) >= 1.0f;
+            default:
+                return true;
+        }
+    }
+
+    // Slot holding key, or the empty slot where it would go
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldFired = firedNanos;
+        keys = new long[oldKeys.length * 2];
+        firedNanos = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                firedNanos[slot] = oldFired[i];
+            }
+        }
+    }
+
+    public long getSuppressedCount() {
+        long suppressed = 0;
+        for (int kind = 0; kind < KIND_LABELS.length; kind++) {
+            suppressed += releaseCounts[kind] + repeatCounts[kind];
+        }
+        return suppressed;
+    }
+
+    public String describe() {
+        String description = "debounce " + getWindowMillis() + " ms, suppressed " + getSuppressedCount() + " in total";
+        for (int kind = 0; kind < KIND_LABELS.length; kind++) {
+            description += ", " + KIND_LABELS[kind] + " fired " + firedCounts[kind]
+                + " (suppressed releases " + releaseCounts[kind] + ", repeats " + repeatCounts[kind] + ")";
+        }
+        return description;
+    }
+}
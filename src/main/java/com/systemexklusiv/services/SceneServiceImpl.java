@@ -28,6 +28,7 @@ public class SceneServiceImpl {
                 } else {
                     oscManager.sendSceneName(index, "");
                 }
+                broadcastSceneCount();
             });
             
             scene.getName().addValueObserver(name -> {
@@ -39,6 +40,7 @@ public class SceneServiceImpl {
         
         isMonitoring = true;
         broadcastAllScenes();
+        broadcastSceneCount();
     }
     
     public void stopMonitoring() {
@@ -46,13 +48,40 @@ public class SceneServiceImpl {
     }
     
     public void broadcastAllScenes() {
-        for (int i = 0; i < apiService.getSceneBank().getSizeOfBank(); i++) {
+        broadcastScenes(0, apiService.getSceneBank().getSizeOfBank());
+    }
+    
+    /**
+     * Sends count scene names starting at offset, clamped to the bank.
+     */
+    public void broadcastScenes(int offset, int count) {
+        int start = Math.max(offset, 0);
+        int end = (int) Math.min((long) start + count, apiService.getSceneBank().getSizeOfBank());
+        
+        if (oscManager.isCompactSnapshots()) {
+            // Indexed by slot, like the bank itself
+            String[] names = new String[Math.max(end, 0)];
+            for (int i = start; i < end; i++) {
+                names[i] = apiService.getSceneName(i);
+            }
+            oscManager.sendNameBank(OSCAddressTable.SCENE_NAMES, names, start, end - start);
+            return;
+        }
+        
+        oscManager.beginBatch();
+        for (int i = start; i < end; i++) {
             broadcastScene(i);  // OSC uses 0-based indexing
         }
+        oscManager.endBatch("scene names");
     }
     
     public void broadcastScene(int index) {
         String name = apiService.getSceneName(index);  // Both OSC and API use 0-based indexing
         oscManager.sendSceneName(index, name);
     }
-}
\ No newline at end of file
+    
+    public void broadcastSceneCount() {
+        // The OSC manager's shadow state drops the send when the count did not change
+        oscManager.sendSceneCount(apiService.getSceneCount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.systemexklusiv.services;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets a multi step track operation continue as soon as Bitwig shows the change it waits for
+ * (a duplicate appearing, a new track being created) instead of sleeping a fixed time.
+ *
+ * The track observers call changed(), which asks the host for a flush. poll() then runs from the
+ * extension's flush(), after Bitwig has delivered the whole batch of observer updates, and resumes
+ * every step whose probe finds what it waits for. A step that sees nothing within its timeout is
+ * resumed with whatever the probe finds at that point, null if still nothing; so is a step replaced
+ * by a newer wait for the same step.
+ * Everything runs on the host thread.
+ */
+public class TrackChangeWaiter {
+
+    public interface Probe<T> {
+        /**
+         * Returns what the step waits for, or null while it is not visible yet.
+         */
+        T find();
+    }
+
+    public interface Continuation<T> {
+        /**
+         * @param found what the probe found, null if the wait timed out or was superseded
+         */
+        void resume(T found);
+    }
+
+    // Why a wait is checked
+    private static final int CHANGED = 0;
+    private static final int TIMED_OUT = 1;
+    private static final int SUPERSEDED = 2;
+
+    private final ControllerHost host;
+    private final ExtensionLogger log;
+    private final List<Wait<?>> waits = new ArrayList<>();
+    private boolean changed = false;
+
+    public TrackChangeWaiter(ControllerHost host, ExtensionLogger log) {
+        this.host = host;
+        this.log = log;
+    }
+
+    /**
+     * Resumes the step once probe finds something, at the latest after timeoutMillis. A pending wait
+     * for the same step is resumed right away with whatever its probe finds, like a timeout, so its
+     * continuation still runs (and releases what it holds) before the new wait takes over.
+     */
+    public <T> void await(String step, long timeoutMillis, Probe<T> probe, Continuation<T> continuation) {
+        for (Wait<?> pending : new ArrayList<>(waits)) {
+            if (pending.step.equals(step) && waits.contains(pending)) {
+                pending.tryResume(SUPERSEDED);
+            }
+        }
+
+        Wait<T> wait = new Wait<>(step, probe, continuation);
+        waits.add(wait);
+        host.scheduleTask(() -> expire(wait), timeoutMillis);
+        host.requestFlush();  // What the step waits for may already be visible
+    }
+
+    /**
+     * Called from the track observers, the waits are checked on the next flush.
+     */
+    public void changed() {
+        if (!changed && !waits.isEmpty()) {
+            changed = true;
+            host.requestFlush();
+        }
+    }
+
+    /**
+     * Resumes every step that can continue, call from the extension's flush().
+     */
+    public void poll() {
+        changed = false;
+        if (waits.isEmpty()) return;
+
+        // Resumed steps may start new waits
+        for (Wait<?> wait : new ArrayList<>(waits)) {
+            if (waits.contains(wait)) {
+                wait.tryResume(CHANGED);
+            }
+        }
+    }
+
+    private void expire(Wait<?> wait) {
+        if (waits.contains(wait)) {
+            wait.tryResume(TIMED_OUT);
+        }
+    }
+
+    public int getPendingCount() {
+        return waits.size();
+    }
+
+    private final class Wait<T> {
+
+        private final String step;
+        private final Probe<T> probe;
+        private final Continuation<T> continuation;
+        private final long startNanos = System.nanoTime();
+
+        Wait(String step, Probe<T> probe, Continuation<T> continuation) {
+            this.step = step;
+            this.probe = probe;
+            this.continuation = continuation;
+        }
+
+        void tryResume(int reason) {
+            T found = probe.find();
+            if (found == null && reason == CHANGED) return;
+
+            waits.remove(this);
+            long latencyMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            if (found != null) {
+                log.info(step + " ready after " + latencyMillis + " ms");
+            } else if (reason == SUPERSEDED) {
+                log.warn(step + " superseded by a newer wait after " + latencyMillis + " ms");
+            } else {
+                log.warn(step + " timed out after " + latencyMillis + " ms");
+            }
+            try {
+                continuation.resume(found);
+            } catch (Exception e) {
+                log.error("Error continuing " + step + " - " + e.getMessage());
+            }
+        }
+    }
+}
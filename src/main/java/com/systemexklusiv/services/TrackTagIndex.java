@@ -0,0 +1,138 @@
+package com.systemexklusiv.services;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Live index over the flat track bank, kept up to date by the exists, name, group and audio observers
+ * of every slot. Holds the positions of each track name plus one bitset per name tag, so the bulk track
+ * commands visit only the tracks they act on instead of reading all slots of the bank.
+ *
+ * Queries return a fresh BitSet of existing positions the caller may narrow further with and()/andNot(),
+ * never reaching past the bank's current window (see setWindow()), so every position they return can be
+ * passed to getItemAt(). Observers and queries both run on the host thread.
+ */
+public class TrackTagIndex {
+
+    public static final int REC = 0;    // <REC> groups are archived by makeRecordGroup
+    public static final int RECORD = 1; // <R> tracks
+    public static final int GROUP = 2;  // <G> tracks keep their monitoring
+    public static final int TAKE = 3;   // <T> archived takes
+    private static final String[] TAGS = { "<REC>", "<R>", "<G>", "<T>" };
+
+    private final String[] names;
+    private final BitSet existing = new BitSet();
+    private final BitSet groups = new BitSet();
+    private final BitSet audio = new BitSet();
+    private final BitSet[] tagged = new BitSet[TAGS.length];
+    private final Map<String, BitSet> positionsByName = new HashMap<>();
+    private int window;
+
+    public TrackTagIndex(int size) {
+        this.names = new String[size];
+        this.window = size;
+        for (int tag = 0; tag < TAGS.length; tag++) {
+            tagged[tag] = new BitSet();
+        }
+    }
+
+    public static String tagName(int tag) {
+        return TAGS[tag];
+    }
+
+    /**
+     * Follows the bank size: Bitwig stops sending values for slots past it, so what is known about
+     * them is forgotten and updates for them are ignored until the window grows again.
+     */
+    public void setWindow(int size) {
+        for (int position = size; position < window; position++) {
+            setName(position, null);
+        }
+        existing.clear(size, names.length);
+        groups.clear(size, names.length);
+        audio.clear(size, names.length);
+        window = size;
+    }
+
+    public void setExists(int position, boolean exists) {
+        if (position >= window) return;
+        existing.set(position, exists);
+    }
+
+    public void setGroup(int position, boolean isGroup) {
+        if (position >= window) return;
+        groups.set(position, isGroup);
+    }
+
+    public void setAudio(int position, boolean canHoldAudio) {
+        if (position >= window) return;
+        audio.set(position, canHoldAudio);
+    }
+
+    public void setName(int position, String name) {
+        if (position >= window && name != null) return;
+        String previous = names[position];
+        if (previous != null) {
+            BitSet positions = positionsByName.get(previous);
+            positions.clear(position);
+            if (positions.isEmpty()) {
+                positionsByName.remove(previous);
+            }
+        }
+
+        names[position] = name;
+        if (name != null) {
+            BitSet positions = positionsByName.get(name);
+            if (positions == null) {
+                positions = new BitSet();
+                positionsByName.put(name, positions);
+            }
+            positions.set(position);
+        }
+
+        for (int tag = 0; tag < TAGS.length; tag++) {
+            tagged[tag].set(position, name != null && name.contains(TAGS[tag]));
+        }
+    }
+
+    public String getName(int position) {
+        return names[position];
+    }
+
+    public BitSet existing() {
+        BitSet result = (BitSet) existing.clone();
+        result.clear(window, names.length);
+        return result;
+    }
+
+    public BitSet groups() {
+        return existingOf(groups);
+    }
+
+    public BitSet audio() {
+        return existingOf(audio);
+    }
+
+    /**
+     * Existing tracks whose name contains the tag, one of REC, RECORD, GROUP or TAKE.
+     */
+    public BitSet tagged(int tag) {
+        return existingOf(tagged[tag]);
+    }
+
+    /**
+     * Existing tracks named exactly name, in bank order.
+     */
+    public BitSet named(String name) {
+        BitSet positions = positionsByName.get(name);
+        return positions != null ? existingOf(positions) : new BitSet();
+    }
+
+    private BitSet existingOf(BitSet positions) {
+        BitSet result = (BitSet) positions.clone();
+        result.and(existing);
+        result.clear(window, names.length);
+        return result;
+    }
+}